@@ -0,0 +1,23 @@
+package com.github.rmannibucau.shiro.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// same as jmh Main but always reports allocation rates
+public final class BenchmarkRunner {
+    private BenchmarkRunner() {
+        // no-op
+    }
+
+    public static void main(final String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.rmannibucau.shiro.benchmark;
+
+import com.github.rmannibucau.shiro.configurer.SecurityManagerConfigurer;
+import com.github.rmannibucau.shiro.holder.SubjectHolders;
+import com.github.rmannibucau.shiro.setup.ShiroSetup;
+import org.apache.shiro.realm.SimpleAccountRealm;
+import org.apache.shiro.web.env.DefaultWebEnvironment;
+import org.apache.shiro.web.env.WebEnvironment;
+import org.apache.shiro.web.mgt.DefaultWebSecurityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.enterprise.inject.Instance;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
+
+// CdiShiroFilter throughput with a stub chain, CDI wiring is replaced by a plain web security manager
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class FilterBenchmark {
+    private final FilterChain chain = (request, response) -> {
+        // no-op
+    };
+
+    @Param({"thread-context", "thread-local"})
+    private String subjectHolder;
+
+    private ShiroSetup.CdiShiroFilter filter;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+
+    @Setup
+    public void setup() throws ServletException {
+        SubjectHolders.set(SubjectHolders.create(subjectHolder));
+
+        final SecurityManagerConfigurer configurer = new SecurityManagerConfigurer();
+        Stubs.inject(configurer, "configuration", Stubs.stub(Instance.class, singletonMap("isUnsatisfied", true)));
+
+        filter = new ShiroSetup.CdiShiroFilter() {
+            @Override
+            protected WebEnvironment createEnvironment(final ServletContext sc) {
+                final DefaultWebEnvironment environment = new DefaultWebEnvironment();
+                environment.setSecurityManager(new DefaultWebSecurityManager(new SimpleAccountRealm()));
+                return environment;
+            }
+        };
+        Stubs.inject(filter, "configurer", configurer);
+
+        final ServletContext servletContext = Stubs.stub(ServletContext.class, emptyMap());
+        filter.init(Stubs.stub(FilterConfig.class, singletonMap("getServletContext", servletContext)));
+
+        final Map<String, Object> requestValues = new HashMap<>();
+        requestValues.put("getServletContext", servletContext);
+        requestValues.put("getRequestURI", "/app/api/test");
+        requestValues.put("getContextPath", "/app");
+        requestValues.put("getServletPath", "/api");
+        requestValues.put("getPathInfo", "/test");
+        requestValues.put("getMethod", "GET");
+        requestValues.put("getRemoteHost", "localhost");
+        request = Stubs.stub(HttpServletRequest.class, requestValues);
+        response = Stubs.stub(HttpServletResponse.class, emptyMap());
+    }
+
+    @TearDown
+    public void destroy() {
+        filter.destroy();
+        SubjectHolders.set(SubjectHolders.create(null));
+    }
+
+    @Benchmark
+    public HttpServletRequest doFilter() throws IOException, ServletException {
+        filter.doFilter(request, response, chain);
+        return request;
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.rmannibucau.shiro.benchmark;
+
+import com.github.rmannibucau.shiro.interceptor.FusedShiroInterceptor;
+import com.github.rmannibucau.shiro.interceptor.ShiroInterceptorBridge;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// secured vs unsecured calls through the interceptors, stacking is done manually like a container would
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class InterceptorBenchmark {
+    private final Service service = new Service();
+    private final ShiroInterceptorBridge roles = new ShiroInterceptorBridge.RequiresRolesInterceptor();
+    private final ShiroInterceptorBridge permissions = new ShiroInterceptorBridge.RequirePermissionsInterceptor();
+    private final FusedShiroInterceptor fused = new FusedShiroInterceptor();
+
+    private Invocation role;
+    private Invocation roleAndPermission;
+    private Invocation stackedRoleAndPermission;
+
+    @Setup
+    public void setup() {
+        role = new Invocation(service, "role", service::role);
+        roleAndPermission = new Invocation(service, "roleAndPermission", service::roleAndPermission);
+        stackedRoleAndPermission = new Invocation(service, "roleAndPermission", () -> permissions.around(roleAndPermission));
+    }
+
+    @Benchmark
+    public Object unsecured() {
+        return service.unsecured();
+    }
+
+    @Benchmark
+    public Object secured(final SecuredThread thread) throws Exception {
+        return roles.around(role);
+    }
+
+    @Benchmark
+    public Object securedTwoAnnotationsSplit(final SecuredThread thread) throws Exception {
+        return roles.around(stackedRoleAndPermission);
+    }
+
+    @Benchmark
+    public Object securedTwoAnnotationsFused(final SecuredThread thread) throws Exception {
+        return fused.around(roleAndPermission);
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.rmannibucau.shiro.benchmark;
+
+import javax.interceptor.InvocationContext;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static java.util.Collections.emptyMap;
+
+// what a container gives to an interceptor, proceed() calls the business method without reflection
+class Invocation implements InvocationContext {
+    private static final Object[] NO_PARAMETERS = new Object[0];
+
+    private final Object target;
+    private final Method method;
+    private final Callable<Object> invocation;
+
+    Invocation(final Object target, final String method, final Callable<Object> invocation) {
+        this.target = target;
+        this.invocation = invocation;
+        try {
+            this.method = target.getClass().getMethod(method);
+        } catch (final NoSuchMethodException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @Override
+    public Object getTarget() {
+        return target;
+    }
+
+    @Override
+    public Object getTimer() {
+        return null;
+    }
+
+    @Override
+    public Method getMethod() {
+        return method;
+    }
+
+    @Override
+    public Constructor<?> getConstructor() {
+        return null;
+    }
+
+    @Override
+    public Object[] getParameters() {
+        return NO_PARAMETERS;
+    }
+
+    @Override
+    public void setParameters(final Object[] objects) {
+        // no-op
+    }
+
+    @Override
+    public Map<String, Object> getContextData() {
+        return emptyMap();
+    }
+
+    @Override
+    public Object proceed() throws Exception {
+        return invocation.call();
+    }
+}
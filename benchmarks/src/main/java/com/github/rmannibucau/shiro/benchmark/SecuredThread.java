@@ -0,0 +1,38 @@
+package com.github.rmannibucau.shiro.benchmark;
+
+import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.realm.SimpleAccountRealm;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// binds a logged in subject on the benchmark thread like the shiro filter would
+@State(Scope.Thread)
+public class SecuredThread {
+    public Subject subject;
+
+    @Setup(Level.Trial)
+    public void bind() {
+        final DefaultSecurityManager manager = new DefaultSecurityManager(new SimpleAccountRealm() {
+            {
+                addAccount("user", "pwd", "rtest");
+                getUser("user").addStringPermission("ptest");
+            }
+        });
+        ThreadContext.bind(manager);
+        subject = manager.createSubject(null);
+        subject.login(new UsernamePasswordToken("user", "pwd"));
+        ThreadContext.bind(subject);
+    }
+
+    @TearDown(Level.Trial)
+    public void unbind() {
+        subject.logout();
+        ThreadContext.remove();
+    }
+}
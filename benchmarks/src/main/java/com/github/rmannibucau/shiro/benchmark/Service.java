@@ -0,0 +1,21 @@
+package com.github.rmannibucau.shiro.benchmark;
+
+import org.apache.shiro.authz.annotation.RequiresPermissions;
+import org.apache.shiro.authz.annotation.RequiresRoles;
+
+public class Service {
+    public String unsecured() {
+        return "ok";
+    }
+
+    @RequiresRoles("rtest")
+    public String role() {
+        return "ok";
+    }
+
+    @RequiresRoles("rtest")
+    @RequiresPermissions("ptest")
+    public String roleAndPermission() {
+        return "ok";
+    }
+}
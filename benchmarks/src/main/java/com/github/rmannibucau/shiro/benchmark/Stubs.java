@@ -0,0 +1,67 @@
+package com.github.rmannibucau.shiro.benchmark;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+// servlet/cdi API stubs, attributes are stored, other methods return the configured value or a default one
+final class Stubs {
+    private Stubs() {
+        // no-op
+    }
+
+    static <T> T stub(final Class<T> api, final Map<String, Object> values) {
+        final Map<String, Object> attributes = new HashMap<>();
+        return api.cast(Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class<?>[]{api}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getAttribute":
+                    return attributes.get(String.valueOf(args[0]));
+                case "setAttribute":
+                    attributes.put(String.valueOf(args[0]), args[1]);
+                    return null;
+                case "removeAttribute":
+                    attributes.remove(String.valueOf(args[0]));
+                    return null;
+                case "getAttributeNames":
+                case "getInitParameterNames":
+                    return Collections.enumeration(attributes.keySet());
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return api.getSimpleName() + "Stub";
+                default:
+                    if (values.containsKey(method.getName())) {
+                        return values.get(method.getName());
+                    }
+                    final Class<?> returnType = method.getReturnType();
+                    if (returnType == boolean.class) {
+                        return false;
+                    }
+                    if (returnType == int.class || returnType == long.class || returnType == short.class) {
+                        return returnType == long.class ? (Object) 0L : returnType == short.class ? (Object) (short) 0 : (Object) 0;
+                    }
+                    return null;
+            }
+        }));
+    }
+
+    static void inject(final Object instance, final String name, final Object value) {
+        for (Class<?> type = instance.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                final Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                field.set(instance, value);
+                return;
+            } catch (final NoSuchFieldException e) {
+                // check parent
+            } catch (final IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        throw new IllegalArgumentException("No field " + name + " in " + instance);
+    }
+}
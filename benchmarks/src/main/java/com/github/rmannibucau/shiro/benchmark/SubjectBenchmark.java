@@ -0,0 +1,64 @@
+package com.github.rmannibucau.shiro.benchmark;
+
+import com.github.rmannibucau.shiro.bean.SubjectProducer;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+// CDI subject (what SubjectProducer returns) vs a reflective proxy vs the thread bound subject
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class SubjectBenchmark {
+    private final Subject produced = new SubjectProducer().subject(null);
+    private final Subject proxy = Subject.class.cast(Proxy.newProxyInstance(
+            Thread.currentThread().getContextClassLoader(),
+            new Class<?>[]{Subject.class},
+            (p, method, args) -> {
+                try {
+                    return method.invoke(ThreadContext.getSubject(), args);
+                } catch (final InvocationTargetException ite) {
+                    throw ite.getCause();
+                }
+            }));
+
+    @Benchmark
+    public boolean direct(final SecuredThread thread) {
+        return ThreadContext.getSubject().isPermitted("ptest");
+    }
+
+    @Benchmark
+    public boolean producer(final SecuredThread thread) {
+        return produced.isPermitted("ptest");
+    }
+
+    @Benchmark
+    public boolean reflectiveProxy(final SecuredThread thread) {
+        return proxy.isPermitted("ptest");
+    }
+
+    @Benchmark
+    public Object producerPrincipal(final SecuredThread thread) {
+        return produced.getPrincipal();
+    }
+
+    @Benchmark
+    public Object reflectiveProxyPrincipal(final SecuredThread thread) {
+        return proxy.getPrincipal();
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.rmannibucau.shiro.authc;
+
+import org.apache.shiro.authc.HostAuthenticationToken;
+
+// an opaque token, the realm supporting it resolves the principal
+public class BearerToken implements HostAuthenticationToken {
+    private final String token;
+    private final String host;
+
+    public BearerToken(final String token, final String host) {
+        this.token = token;
+        this.host = host;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    @Override
+    public String getHost() {
+        return host;
+    }
+
+    @Override
+    public Object getPrincipal() {
+        return token;
+    }
+
+    @Override
+    public Object getCredentials() {
+        return token;
+    }
+
+    @Override
+    public String toString() { // don't leak the token in logs/exceptions
+        return "BearerToken{host=" + host + "}";
+    }
+}
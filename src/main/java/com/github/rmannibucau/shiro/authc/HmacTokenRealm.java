@@ -0,0 +1,83 @@
+package com.github.rmannibucau.shiro.authc;
+
+import com.github.rmannibucau.shiro.cache.BoundedCache;
+import com.github.rmannibucau.shiro.metrics.SecurityMetrics;
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.ExpiredCredentialsException;
+import org.apache.shiro.authc.IncorrectCredentialsException;
+import org.apache.shiro.authc.SimpleAuthenticationInfo;
+import org.apache.shiro.authc.credential.AllowAllCredentialsMatcher;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.realm.AuthorizingRealm;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import static java.util.Arrays.asList;
+
+// stateless realm for HmacTokens bearer tokens, the verification happens when loading the info
+// (hence the allow all matcher) and successful ones are remembered by digest until the token expires
+public class HmacTokenRealm extends AuthorizingRealm {
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final HmacTokens tokens;
+    private final BoundedCache<String, HmacTokens.Claims> verified;
+
+    public HmacTokenRealm(final HmacTokens tokens, final int maxSize) {
+        this.tokens = tokens;
+        this.verified = new BoundedCache<>(maxSize, 0, 16, SecurityMetrics.cache("verified-tokens"));
+        setName("bearer");
+        setAuthenticationTokenClass(BearerToken.class);
+        setCredentialsMatcher(new AllowAllCredentialsMatcher());
+        setCachingEnabled(false); // the claims travel with the principals
+    }
+
+    @Override
+    protected AuthenticationInfo doGetAuthenticationInfo(final AuthenticationToken token) {
+        final String value = BearerToken.class.cast(token).getToken();
+        if (value == null) {
+            throw new IncorrectCredentialsException("No bearer token");
+        }
+        final long now = System.currentTimeMillis();
+        final String digest = digest(value);
+        HmacTokens.Claims claims = verified.get(digest);
+        if (claims == null) {
+            claims = tokens.verify(value);
+            if (claims == null) {
+                throw new IncorrectCredentialsException("Invalid bearer token");
+            }
+            if (!claims.isExpired(now)) {
+                verified.put(digest, claims);
+            }
+        }
+        if (claims.isExpired(now)) {
+            verified.remove(digest);
+            throw new ExpiredCredentialsException("Bearer token expired");
+        }
+        return new SimpleAuthenticationInfo(new SimplePrincipalCollection(asList(claims.getSubject(), claims), getName()), value);
+    }
+
+    @Override
+    protected AuthorizationInfo doGetAuthorizationInfo(final PrincipalCollection principals) {
+        final HmacTokens.Claims claims = principals.oneByType(HmacTokens.Claims.class);
+        return claims == null ? null : new SimpleAuthorizationInfo(claims.getRoles());
+    }
+
+    private static String digest(final String token) { // don't keep usable tokens in memory
+        final MessageDigest digest = SHA256.get();
+        digest.reset();
+        return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.rmannibucau.shiro.authc;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableSet;
+
+// compact signed tokens: base64url(subject \n expiry in epoch seconds \n comma separated roles) . base64url(hmac-sha256)
+public class HmacTokens {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ThreadLocal<Mac> macs;
+
+    public HmacTokens(final byte[] secret) {
+        if (secret == null || secret.length < 32) {
+            throw new IllegalArgumentException("HMAC-SHA256 secret must be at least 32 bytes");
+        }
+        final SecretKeySpec key = new SecretKeySpec(secret.clone(), "HmacSHA256");
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                final Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(key);
+                return mac;
+            } catch (final NoSuchAlgorithmException | InvalidKeyException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    public String issue(final String subject, final long expiresAt, final Collection<String> roles) {
+        if (subject == null || subject.indexOf('\n') >= 0) {
+            throw new IllegalArgumentException("Invalid subject: '" + subject + "'");
+        }
+        final StringBuilder claims = new StringBuilder(subject).append('\n').append(expiresAt / 1000).append('\n');
+        if (roles != null) {
+            for (final String role : roles) {
+                if (role.indexOf(',') >= 0 || role.indexOf('\n') >= 0) {
+                    throw new IllegalArgumentException("Invalid role: '" + role + "'");
+                }
+                if (claims.charAt(claims.length() - 1) != '\n') {
+                    claims.append(',');
+                }
+                claims.append(role);
+            }
+        }
+        final String payload = ENCODER.encodeToString(claims.toString().getBytes(StandardCharsets.UTF_8));
+        return payload + '.' + ENCODER.encodeToString(sign(payload));
+    }
+
+    // null when the token is malformed or the signature doesn't match, expiry is left to the caller
+    public Claims verify(final String token) {
+        if (token == null) {
+            return null;
+        }
+        final int dot = token.lastIndexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return null;
+        }
+        final String payload = token.substring(0, dot);
+        try {
+            if (!MessageDigest.isEqual(sign(payload), DECODER.decode(token.substring(dot + 1)))) { // constant time
+                return null;
+            }
+            final String[] parts = new String(DECODER.decode(payload), StandardCharsets.UTF_8).split("\n", -1);
+            if (parts.length != 3) {
+                return null;
+            }
+            return new Claims(parts[0], Long.parseLong(parts[1]) * 1000,
+                    parts[2].isEmpty() ? emptySet() : unmodifiableSet(new LinkedHashSet<>(asList(parts[2].split(",")))));
+        } catch (final IllegalArgumentException iae) { // base64 or number
+            return null;
+        }
+    }
+
+    private byte[] sign(final String payload) {
+        final Mac mac = macs.get();
+        return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII)); // doFinal resets the mac
+    }
+
+    // also added to the principals so authorization doesn't need any lookup
+    public static class Claims implements Serializable {
+        private final String subject;
+        private final long expiresAt;
+        private final Set<String> roles;
+
+        public Claims(final String subject, final long expiresAt, final Set<String> roles) {
+            this.subject = subject;
+            this.expiresAt = expiresAt;
+            this.roles = roles;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        public Set<String> getRoles() {
+            return roles;
+        }
+
+        public boolean isExpired(final long now) {
+            return expiresAt <= now;
+        }
+
+        @Override
+        public String toString() {
+            return "Claims{subject=" + subject + ", expiresAt=" + expiresAt + ", roles=" + roles + "}";
+        }
+    }
+}
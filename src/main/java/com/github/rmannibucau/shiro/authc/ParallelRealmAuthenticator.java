@@ -0,0 +1,165 @@
+package com.github.rmannibucau.shiro.authc;
+
+import org.apache.shiro.authc.AuthenticationException;
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.MergableAuthenticationInfo;
+import org.apache.shiro.authc.SimpleAuthenticationInfo;
+import org.apache.shiro.authc.UnknownAccountException;
+import org.apache.shiro.authc.pam.UnsupportedTokenException;
+import org.apache.shiro.realm.Realm;
+import org.apache.shiro.util.Destroyable;
+import org.apache.shiro.util.ThreadContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// asks all the realms at the same time instead of one after the other:
+// - AT_LEAST_ONE_SUCCESS (AtLeastOneSuccessfulStrategy, shiro default) waits for every realm and merges the successes in realm order,
+// - ALL_SUCCESS (AllSuccessfulStrategy) fails as soon as a realm fails,
+// - FIRST_SUCCESS returns the info of the first realm, in realm order, which authenticates the token: a faster later realm
+//   only wins once all the previous ones failed. Principals of the other realms are not merged (fromRealm() won't see them).
+// remaining lookups are cancelled (interrupted) as soon as the outcome is known.
+public class ParallelRealmAuthenticator extends RecordingRealmAuthenticator implements Destroyable {
+    private final Mode mode;
+    private final ThreadPoolExecutor executor;
+
+    public ParallelRealmAuthenticator(final Mode mode, final int threads, final int queueSize) {
+        this.mode = mode;
+        final AtomicInteger counter = new AtomicInteger();
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        this.executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES, new ArrayBlockingQueue<>(queueSize), r -> {
+            final Thread thread = new Thread(() -> {
+                ThreadContext.remove(); // created from a login request, don't keep its subject/security manager
+                r.run();
+            }, "shiro-cdi-authentication-" + counter.incrementAndGet());
+            thread.setContextClassLoader(loader);
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy()); // saturated: degrade to the caller thread
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    @Override
+    protected AuthenticationInfo doMultiRealmAuthentication(final Collection<Realm> realms, final AuthenticationToken token) {
+        final List<Realm> supporting = new ArrayList<>(realms.size());
+        for (final Realm realm : realms) {
+            if (realm.supports(token)) {
+                supporting.add(realm);
+            } else if (mode == Mode.ALL_SUCCESS) {
+                throw new UnsupportedTokenException("Realm [" + realm + "] of type [" + realm.getClass().getName() + "] does not support " +
+                        "the submitted AuthenticationToken [" + token + "].  All configured realm(s) must support it.");
+            }
+        }
+        if (supporting.isEmpty()) {
+            throw noSuccessfulRealm(token);
+        }
+
+        final CompletionService<Integer> completion = new ExecutorCompletionService<>(executor);
+        final AuthenticationInfo[] infos = new AuthenticationInfo[supporting.size()];
+        final boolean[] completed = new boolean[supporting.size()];
+        final List<Future<Integer>> futures = new ArrayList<>(supporting.size());
+        int next = 0; // first realm without an outcome, FIRST_SUCCESS keeps the realm order priority
+        try {
+            for (int i = 0; i < supporting.size(); i++) {
+                final int index = i;
+                futures.add(completion.submit(() -> {
+                    infos[index] = fetchAuthenticationInfo(supporting.get(index), token);
+                    return index;
+                }));
+            }
+            for (int i = 0; i < supporting.size(); i++) {
+                final Future<Integer> done = completion.take();
+                final int index = futures.indexOf(done);
+                completed[index] = true;
+                try {
+                    done.get();
+                } catch (final ExecutionException e) {
+                    final Realm realm = supporting.get(index);
+                    if (mode == Mode.ALL_SUCCESS) {
+                        throw e.getCause() instanceof AuthenticationException ? AuthenticationException.class.cast(e.getCause()) :
+                                new AuthenticationException("Unable to acquire account data from realm [" + realm + "].", e.getCause());
+                    }
+                    logRealmFailure(realm, e.getCause());
+                }
+                if (mode == Mode.FIRST_SUCCESS) {
+                    while (next < completed.length && completed[next]) {
+                        if (infos[next] != null) { // all the previous realms failed or don't know the account
+                            return infos[next];
+                        }
+                        next++;
+                    }
+                } else if (mode == Mode.ALL_SUCCESS && infos[index] == null) {
+                    throw new UnknownAccountException("Realm [" + supporting.get(index) + "] could not find any associated account data " +
+                            "for the submitted AuthenticationToken [" + token + "].");
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationException("Interrupted while authenticating", e);
+        } finally {
+            for (final Future<Integer> future : futures) {
+                future.cancel(true);
+            }
+        }
+        if (mode == Mode.FIRST_SUCCESS) {
+            throw noSuccessfulRealm(token);
+        }
+        final AuthenticationInfo merged = merge(infos); // in realm order, as shiro strategies do
+        if (merged == null) {
+            throw noSuccessfulRealm(token);
+        }
+        return merged;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    // null when no realm found the account
+    private static AuthenticationInfo merge(final AuthenticationInfo[] infos) {
+        AuthenticationInfo aggregate = null;
+        for (final AuthenticationInfo info : infos) {
+            if (info == null) {
+                continue;
+            }
+            if (aggregate == null) {
+                aggregate = new SimpleAuthenticationInfo();
+            }
+            if (MergableAuthenticationInfo.class.isInstance(aggregate)) {
+                MergableAuthenticationInfo.class.cast(aggregate).merge(info);
+            } else {
+                aggregate = info;
+            }
+        }
+        return aggregate;
+    }
+
+    private static AuthenticationException noSuccessfulRealm(final AuthenticationToken token) { // AtLeastOneSuccessfulStrategy message
+        return new AuthenticationException("Authentication token of type [" + token.getClass() + "] could not be authenticated by any " +
+                "configured realms.  Please ensure that at least one realm can authenticate these tokens.");
+    }
+
+    public enum Mode {
+        AT_LEAST_ONE_SUCCESS, ALL_SUCCESS, FIRST_SUCCESS;
+
+        public static Mode parse(final String value) {
+            return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        }
+    }
+}
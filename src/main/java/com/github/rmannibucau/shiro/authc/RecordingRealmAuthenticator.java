@@ -0,0 +1,90 @@
+package com.github.rmannibucau.shiro.authc;
+
+import com.github.rmannibucau.shiro.jfr.SecurityEvents;
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.pam.AuthenticationStrategy;
+import org.apache.shiro.authc.pam.ModularRealmAuthenticator;
+import org.apache.shiro.realm.Realm;
+
+import javax.enterprise.inject.Vetoed;
+import java.util.Collection;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// ModularRealmAuthenticator emitting a flight recorder event per realm call
+@Vetoed // beans.xml is in "all" mode, don't compete with application beans
+public class RecordingRealmAuthenticator extends ModularRealmAuthenticator {
+    private static final SecurityEvents EVENTS = SecurityEvents.get();
+
+    // realms are passed since the getter is protected, they are the security manager ones anyway
+    public static RecordingRealmAuthenticator from(final ModularRealmAuthenticator authenticator, final Collection<Realm> realms) {
+        final RecordingRealmAuthenticator recording = new RecordingRealmAuthenticator();
+        recording.setAuthenticationStrategy(authenticator.getAuthenticationStrategy());
+        recording.setAuthenticationListeners(authenticator.getAuthenticationListeners());
+        if (realms != null && !realms.isEmpty()) {
+            recording.setRealms(realms);
+        }
+        return recording;
+    }
+
+    @Override
+    protected AuthenticationInfo doSingleRealmAuthentication(final Realm realm, final AuthenticationToken token) {
+        final Object event = EVENTS.beginRealm();
+        if (event == null) {
+            return super.doSingleRealmAuthentication(realm, token);
+        }
+        boolean success = false;
+        try {
+            final AuthenticationInfo info = super.doSingleRealmAuthentication(realm, token);
+            success = true;
+            return info;
+        } finally {
+            EVENTS.commitRealm(event, realm.getName(), "authenticate", token.getClass().getSimpleName(), success);
+        }
+    }
+
+    // same flow as the parent, only the realm call is wrapped
+    @Override
+    protected AuthenticationInfo doMultiRealmAuthentication(final Collection<Realm> realms, final AuthenticationToken token) {
+        final AuthenticationStrategy strategy = getAuthenticationStrategy();
+        AuthenticationInfo aggregate = strategy.beforeAllAttempts(realms, token);
+        for (final Realm realm : realms) {
+            aggregate = strategy.beforeAttempt(realm, token, aggregate);
+            if (!realm.supports(token)) {
+                continue;
+            }
+            AuthenticationInfo info = null;
+            Throwable error = null;
+            try {
+                info = fetchAuthenticationInfo(realm, token);
+            } catch (final Throwable throwable) {
+                error = throwable;
+                logRealmFailure(realm, throwable);
+            }
+            aggregate = strategy.afterAttempt(realm, token, info, aggregate, error);
+        }
+        return strategy.afterAllAttempts(token, aggregate);
+    }
+
+    protected AuthenticationInfo fetchAuthenticationInfo(final Realm realm, final AuthenticationToken token) {
+        final Object event = EVENTS.beginRealm();
+        if (event == null) {
+            return realm.getAuthenticationInfo(token);
+        }
+        AuthenticationInfo info = null;
+        try {
+            info = realm.getAuthenticationInfo(token);
+            return info;
+        } finally {
+            EVENTS.commitRealm(event, realm.getName(), "authenticate", token.getClass().getSimpleName(), info != null);
+        }
+    }
+
+    protected void logRealmFailure(final Realm realm, final Throwable throwable) {
+        final Logger logger = Logger.getLogger(ModularRealmAuthenticator.class.getName());
+        if (logger.isLoggable(Level.FINE)) { // shiro logs it at debug level, it is often just a wrong password
+            logger.log(Level.FINE, "Realm [" + realm + "] threw an exception during a multi-realm authentication attempt:", throwable);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.github.rmannibucau.shiro.authc;
+
+import com.github.rmannibucau.shiro.cache.BoundedCache;
+import com.github.rmannibucau.shiro.metrics.SecurityMetrics;
+import org.apache.shiro.authc.AuthenticationException;
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationListener;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.SaltedAuthenticationInfo;
+import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.authc.credential.CredentialsMatcher;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.util.ByteSource;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+// remembers successful (and only successful) password verifications for a short time so stateless
+// basic auth doesn't pay the slow hash (bcrypt, pbkdf2...) on each request.
+// nothing reversible is kept: keys are a salted sha-256 of realm/username/password (the content of the
+// Authorization header) and the stored credentials are only kept as a digest, a changed password
+// (different stored hash or salt) is therefore a miss. invalidate()/clear() are there for external stores.
+public class VerifiedCredentialsCache implements AuthenticationListener {
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final byte[] salt = new byte[32];
+    private final BoundedCache<String, Verification> verifications;
+    private final boolean evictOnLogout;
+
+    public VerifiedCredentialsCache(final int maxSize, final long ttlMs, final boolean evictOnLogout) {
+        new SecureRandom().nextBytes(salt); // per instance so keys are useless outside of this jvm
+        this.verifications = new BoundedCache<>(maxSize, TimeUnit.MILLISECONDS.toNanos(ttlMs), 16, SecurityMetrics.cache("verified-credentials"));
+        this.evictOnLogout = evictOnLogout;
+    }
+
+    public CredentialsMatcher wrap(final CredentialsMatcher matcher, final String realm) {
+        return CachingMatcher.class.isInstance(matcher) ? matcher : new CachingMatcher(this, matcher, realm);
+    }
+
+    // to call when a password changes without the realm seeing a new stored credential
+    public void invalidate(final Object principal) {
+        verifications.removeIf((key, verification) -> Objects.equals(principal, verification.principal));
+    }
+
+    public void clear() {
+        verifications.clear();
+    }
+
+    public int size() {
+        return verifications.size();
+    }
+
+    @Override
+    public void onSuccess(final AuthenticationToken token, final AuthenticationInfo info) {
+        // no-op
+    }
+
+    @Override
+    public void onFailure(final AuthenticationToken token, final AuthenticationException ae) {
+        // no-op
+    }
+
+    @Override
+    public void onLogout(final PrincipalCollection principals) {
+        if (evictOnLogout && principals != null && principals.getPrimaryPrincipal() != null) {
+            invalidate(principals.getPrimaryPrincipal());
+        }
+    }
+
+    private String key(final String realm, final UsernamePasswordToken token) {
+        final MessageDigest digest = SHA256.get();
+        digest.reset();
+        digest.update(salt);
+        digest.update(String.valueOf(realm).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(String.valueOf(token.getUsername()).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        if (token.getPassword() != null) {
+            digest.update(ByteSource.Util.bytes(token.getPassword()).getBytes()); // utf-8 as shiro does
+        }
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    // null when the stored credentials can't be fingerprinted, the verification is then not cached
+    private static byte[] fingerprint(final AuthenticationInfo info) {
+        final Object credentials = info.getCredentials();
+        if (credentials == null || !ByteSource.Util.isCompatible(credentials)) {
+            return null;
+        }
+        final MessageDigest digest = SHA256.get();
+        digest.reset();
+        digest.update(ByteSource.Util.bytes(credentials).getBytes());
+        if (SaltedAuthenticationInfo.class.isInstance(info)) {
+            final ByteSource credentialsSalt = SaltedAuthenticationInfo.class.cast(info).getCredentialsSalt();
+            if (credentialsSalt != null) {
+                digest.update((byte) 0);
+                digest.update(credentialsSalt.getBytes());
+            }
+        }
+        return digest.digest();
+    }
+
+    private static final class CachingMatcher implements CredentialsMatcher {
+        private final VerifiedCredentialsCache cache;
+        private final CredentialsMatcher delegate;
+        private final String realm;
+
+        private CachingMatcher(final VerifiedCredentialsCache cache, final CredentialsMatcher delegate, final String realm) {
+            this.cache = cache;
+            this.delegate = delegate;
+            this.realm = realm;
+        }
+
+        @Override
+        public boolean doCredentialsMatch(final AuthenticationToken token, final AuthenticationInfo info) {
+            if (!UsernamePasswordToken.class.isInstance(token)) {
+                return delegate.doCredentialsMatch(token, info);
+            }
+            final byte[] fingerprint = fingerprint(info);
+            if (fingerprint == null) {
+                return delegate.doCredentialsMatch(token, info);
+            }
+            final String key = cache.key(realm, UsernamePasswordToken.class.cast(token));
+            final Verification verification = cache.verifications.get(key);
+            if (verification != null && MessageDigest.isEqual(verification.fingerprint, fingerprint)) {
+                return true;
+            }
+            final boolean match = delegate.doCredentialsMatch(token, info);
+            if (match) {
+                cache.verifications.put(key, new Verification(
+                        info.getPrincipals() != null ? info.getPrincipals().getPrimaryPrincipal() : null, fingerprint));
+            } else if (verification != null) { // stored credentials changed
+                cache.verifications.remove(key);
+            }
+            return match;
+        }
+    }
+
+    private static final class Verification {
+        private final Object principal;
+        private final byte[] fingerprint;
+
+        private Verification(final Object principal, final byte[] fingerprint) {
+            this.principal = principal;
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.github.rmannibucau.shiro.authz;
+
+import org.apache.shiro.subject.Subject;
+
+import java.util.concurrent.CompletionStage;
+
+// produce one in CDI to plug a non blocking realm, used when shiro-cdi.interceptors.async=true
+// for methods returning a CompletionStage
+public interface AsyncAuthorizer {
+    CompletionStage<Boolean> isPermitted(Subject subject, String permission);
+
+    CompletionStage<Boolean> hasRole(Subject subject, String role);
+}
@@ -0,0 +1,36 @@
+package com.github.rmannibucau.shiro.authz;
+
+import org.apache.shiro.authz.Permission;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// request scoped decisions bound by CdiShiroFilter around the chain. It is a plain thread local and not ThreadContext:
+// threads started during the request must not inherit decisions they would keep answering after the request
+public class AuthorizationMemo {
+    private static final ThreadLocal<AuthorizationMemo> CURRENT = new ThreadLocal<>();
+
+    private final Map<Object, Decisions> decisions = new HashMap<>();
+
+    public static AuthorizationMemo current() {
+        return CURRENT.get();
+    }
+
+    public static void bind() {
+        CURRENT.set(new AuthorizationMemo());
+    }
+
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    Decisions decisions(final Object principal) {
+        return decisions.computeIfAbsent(principal, k -> new Decisions());
+    }
+
+    static class Decisions {
+        final Map<String, Boolean> stringPermissions = new HashMap<>();
+        final Map<Permission, Boolean> permissions = new HashMap<>();
+        final Map<String, Boolean> roles = new HashMap<>();
+    }
+}
@@ -0,0 +1,11 @@
+package com.github.rmannibucau.shiro.authz;
+
+import org.apache.shiro.subject.PrincipalCollection;
+
+import java.util.BitSet;
+import java.util.List;
+
+// authorizers able to check several permissions resolving the principal data once, bit i is set when permissions[i] is granted
+public interface BatchAuthorizer {
+    BitSet permitted(PrincipalCollection principals, List<String> permissions);
+}
@@ -0,0 +1,48 @@
+package com.github.rmannibucau.shiro.authz;
+
+import org.apache.shiro.authz.Authorizer;
+import org.apache.shiro.mgt.AuthorizingSecurityManager;
+import org.apache.shiro.mgt.SecurityManager;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.subject.support.DelegatingSubject;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+// entry point of the batch checks for a subject, falls back on one isPermitted() per permission
+// when the security manager authorizer is not a BatchAuthorizer
+public final class BatchPermissions {
+    private BatchPermissions() {
+        // no-op
+    }
+
+    public static BitSet permitted(final Subject subject, final Collection<String> permissions) {
+        final List<String> list = List.class.isInstance(permissions) ? (List<String>) permissions : new ArrayList<>(permissions);
+        final PrincipalCollection principals = subject.getPrincipals();
+        if (principals == null || principals.isEmpty() || list.isEmpty()) { // as DelegatingSubject: no identity, no permission
+            return new BitSet();
+        }
+        final Authorizer authorizer = authorizer(subject);
+        if (BatchAuthorizer.class.isInstance(authorizer)) {
+            return BatchAuthorizer.class.cast(authorizer).permitted(principals, list);
+        }
+        final BitSet permitted = new BitSet(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            if (subject.isPermitted(list.get(i))) {
+                permitted.set(i);
+            }
+        }
+        return permitted;
+    }
+
+    private static Authorizer authorizer(final Subject subject) {
+        if (!DelegatingSubject.class.isInstance(subject)) {
+            return null;
+        }
+        final SecurityManager securityManager = DelegatingSubject.class.cast(subject).getSecurityManager();
+        return AuthorizingSecurityManager.class.isInstance(securityManager) ? AuthorizingSecurityManager.class.cast(securityManager).getAuthorizer() : null;
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.rmannibucau.shiro.authz;
+
+import org.apache.shiro.subject.Subject;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+// default AsyncAuthorizer: blocking realms are called from a dedicated pool instead of the caller thread
+public class ExecutorAsyncAuthorizer implements AsyncAuthorizer {
+    private final Executor executor;
+
+    public ExecutorAsyncAuthorizer(final Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletionStage<Boolean> isPermitted(final Subject subject, final String permission) {
+        return CompletableFuture.supplyAsync(() -> subject.isPermitted(permission), executor);
+    }
+
+    @Override
+    public CompletionStage<Boolean> hasRole(final Subject subject, final String role) {
+        return CompletableFuture.supplyAsync(() -> subject.hasRole(role), executor);
+    }
+}
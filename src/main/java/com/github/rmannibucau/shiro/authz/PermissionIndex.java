@@ -0,0 +1,172 @@
+package com.github.rmannibucau.shiro.authz;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.WildcardPermission;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+// trie of the WildcardPermission parts of a subject, other permission types are checked linearly
+class PermissionIndex {
+    private static final String WILDCARD = "*";
+    private static final int MAX_EXPANSION = 64; // "a,b,c:d,e:f,g" is inserted as 3*2*2 paths
+
+    private final Object source;
+    private final Node root = new Node();
+    private final List<Permission> others = new ArrayList<>();
+
+    PermissionIndex(final Object source, final Collection<Permission> permissions, final UnaryOperator<String> interner) {
+        this.source = source;
+        for (final Permission permission : permissions) {
+            final String[][] parts = WildcardPermission.class == permission.getClass() ? parse(permission.toString(), false) : null;
+            if (parts == null || !insert(parts, interner)) {
+                others.add(permission);
+            }
+        }
+    }
+
+    Object getSource() {
+        return source;
+    }
+
+    boolean hasOthers() {
+        return !others.isEmpty();
+    }
+
+    boolean implies(final String[] request) {
+        return implies(root, request, 0);
+    }
+
+    boolean othersImply(final Permission permission) {
+        for (final Permission other : others) {
+            if (other.implies(permission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // mimics WildcardPermission parsing, returns null when it would be rejected
+    static String[][] parse(final String value, final boolean lowerCase) {
+        if (value == null) {
+            return null;
+        }
+        final String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        final String[] parts = (lowerCase ? trimmed.toLowerCase() : trimmed).split(":");
+        if (parts.length == 0) {
+            return null;
+        }
+        final String[][] result = new String[parts.length][];
+        for (int i = 0; i < parts.length; i++) {
+            final String[] subParts = parts[i].split(",");
+            if (subParts.length == 0) {
+                return null;
+            }
+            result[i] = subParts;
+        }
+        return result;
+    }
+
+    // a request only uses the trie when each part has a single value (the common case), null otherwise
+    static String[] request(final String[][] parts, final UnaryOperator<String> canonicalizer) {
+        if (parts == null) {
+            return null;
+        }
+        final String[] request = new String[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            if (parts[i].length != 1) {
+                return null;
+            }
+            request[i] = canonicalizer.apply(parts[i][0]);
+        }
+        return request;
+    }
+
+    private static boolean implies(final Node node, final String[] request, final int index) {
+        if (node.terminal) { // held permission is shorter or equal, remaining parts are implied
+            return true;
+        }
+        if (index == request.length) {
+            return node.impliedAtEnd;
+        }
+        if (node.children != null) {
+            final Node child = node.children.get(request[index]);
+            if (child != null && implies(child, request, index + 1)) {
+                return true;
+            }
+        }
+        return node.wildcard != null && implies(node.wildcard, request, index + 1);
+    }
+
+    private boolean insert(final String[][] parts, final UnaryOperator<String> interner) {
+        int expansion = 1;
+        final String[][] normalized = new String[parts.length][];
+        for (int i = 0; i < parts.length; i++) {
+            normalized[i] = contains(parts[i], WILDCARD) ? new String[]{WILDCARD} : parts[i];
+            expansion *= normalized[i].length;
+            if (expansion > MAX_EXPANSION) {
+                return false;
+            }
+        }
+        insert(root, normalized, 0, interner);
+        return true;
+    }
+
+    private static void insert(final Node node, final String[][] parts, final int index, final UnaryOperator<String> interner) {
+        if (index == parts.length) {
+            node.terminal = true;
+            node.impliedAtEnd = true;
+            return;
+        }
+        if (onlyWildcardsFrom(parts, index)) { // a shorter request is implied if the remaining held parts are wildcards
+            node.impliedAtEnd = true;
+        }
+        for (final String token : parts[index]) {
+            final Node next;
+            if (WILDCARD.equals(token)) {
+                if (node.wildcard == null) {
+                    node.wildcard = new Node();
+                }
+                next = node.wildcard;
+            } else {
+                if (node.children == null) {
+                    node.children = new HashMap<>();
+                }
+                next = node.children.computeIfAbsent(interner.apply(token), k -> new Node());
+            }
+            insert(next, parts, index + 1, interner);
+        }
+    }
+
+    private static boolean onlyWildcardsFrom(final String[][] parts, final int index) {
+        for (int i = index; i < parts.length; i++) {
+            if (parts[i].length != 1 || !WILDCARD.equals(parts[i][0])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(final String[] values, final String value) {
+        for (final String v : values) {
+            if (value.equals(v)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Node {
+        private Map<String, Node> children;
+        private Node wildcard;
+        private boolean terminal;
+        private boolean impliedAtEnd;
+    }
+}
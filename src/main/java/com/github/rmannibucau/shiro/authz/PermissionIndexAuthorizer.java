@@ -0,0 +1,302 @@
+package com.github.rmannibucau.shiro.authz;
+
+import com.github.rmannibucau.shiro.cache.BoundedCache;
+import com.github.rmannibucau.shiro.jfr.SecurityEvents;
+import com.github.rmannibucau.shiro.metrics.CacheStats;
+import com.github.rmannibucau.shiro.metrics.SecurityMetrics;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Authorizer;
+import org.apache.shiro.authz.ModularRealmAuthorizer;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.apache.shiro.authz.permission.WildcardPermissionResolver;
+import org.apache.shiro.realm.AuthorizingRealm;
+import org.apache.shiro.realm.Realm;
+import org.apache.shiro.subject.PrincipalCollection;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.UnaryOperator;
+
+// ModularRealmAuthorizer where AuthorizingRealm permissions are compiled in a trie per AuthorizationInfo
+// instead of being resolved and scanned for each check
+public class PermissionIndexAuthorizer extends ModularRealmAuthorizer implements BatchAuthorizer {
+    private static final MethodHandle GET_AUTHORIZATION_INFO = handle("getAuthorizationInfo", PrincipalCollection.class);
+    private static final MethodHandle GET_PERMISSIONS = handle("getPermissions", AuthorizationInfo.class);
+    private static final SecurityEvents EVENTS = SecurityEvents.get();
+
+    private final ConcurrentMap<String, String> tokens = new ConcurrentHashMap<>();
+    private final UnaryOperator<String> interner = this::intern;
+    private final UnaryOperator<String> canonicalizer = this::canonicalize;
+    private final int maxSize;
+    private final CacheStats indexStats; // null when metrics are disabled
+    private final BoundedCache<String, String[]> requests;
+    private volatile RealmIndex[] indexes;
+
+    public PermissionIndexAuthorizer(final Collection<Realm> realms, final int maxSize) {
+        this(realms, maxSize, SecurityMetrics.cache("permission-index"));
+    }
+
+    public PermissionIndexAuthorizer(final Collection<Realm> realms, final int maxSize, final CacheStats indexStats) {
+        this.maxSize = maxSize;
+        this.indexStats = indexStats;
+        this.requests = new BoundedCache<>(maxSize, 0, 16, SecurityMetrics.cache("permission-requests"));
+        setRealms(realms);
+    }
+
+    @Override
+    public void setRealms(final Collection<Realm> realms) {
+        super.setRealms(realms);
+        indexes = realms == null ? new RealmIndex[0] : realms.stream()
+                .filter(Authorizer.class::isInstance)
+                .map(RealmIndex::new)
+                .toArray(RealmIndex[]::new);
+    }
+
+    @Override
+    public boolean isPermitted(final PrincipalCollection principals, final String permission) {
+        assertRealmsConfigured();
+        for (final RealmIndex index : indexes) {
+            final Object event = EVENTS.beginRealm();
+            final boolean permitted = index.isPermitted(principals, permission);
+            if (event != null) {
+                EVENTS.commitRealm(event, index.name, "isPermitted", String.valueOf(permission), permitted);
+            }
+            if (permitted) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isPermitted(final PrincipalCollection principals, final Permission permission) {
+        assertRealmsConfigured();
+        for (final RealmIndex index : indexes) {
+            final Object event = EVENTS.beginRealm();
+            final boolean permitted = index.isPermitted(principals, permission);
+            if (event != null) {
+                EVENTS.commitRealm(event, index.name, "isPermitted", String.valueOf(permission), permitted);
+            }
+            if (permitted) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // each realm resolves its index once for all the permissions still denied by the previous realms
+    @Override
+    public BitSet permitted(final PrincipalCollection principals, final List<String> permissions) {
+        assertRealmsConfigured();
+        final BitSet permitted = new BitSet(permissions.size());
+        for (final RealmIndex index : indexes) {
+            if (permitted.nextClearBit(0) >= permissions.size()) {
+                break;
+            }
+            final Object event = EVENTS.beginRealm();
+            index.isPermitted(principals, permissions, permitted);
+            if (event != null) {
+                EVENTS.commitRealm(event, index.name, "isPermitted", permissions.size() + " permissions",
+                        permitted.nextClearBit(0) >= permissions.size());
+            }
+        }
+        return permitted;
+    }
+
+    @Override // same as parent but records the realm calls
+    public boolean hasRole(final PrincipalCollection principals, final String role) {
+        assertRealmsConfigured();
+        for (final RealmIndex index : indexes) {
+            final Object event = EVENTS.beginRealm();
+            final boolean hasRole = index.authorizer.hasRole(principals, role);
+            if (event != null) {
+                EVENTS.commitRealm(event, index.name, "hasRole", role, hasRole);
+            }
+            if (hasRole) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String intern(final String token) {
+        final String existing = tokens.putIfAbsent(token, token);
+        return existing != null ? existing : token;
+    }
+
+    private String canonicalize(final String token) { // don't intern requests, ids would make it grow forever
+        final String existing = tokens.get(token);
+        return existing != null ? existing : token;
+    }
+
+    private String[] request(final String permission) {
+        final String[] cached = requests.get(permission);
+        if (cached != null) {
+            return cached;
+        }
+        final String[] request = PermissionIndex.request(PermissionIndex.parse(permission, true), canonicalizer);
+        if (request != null) {
+            requests.put(permission, request);
+        }
+        return request;
+    }
+
+    private String[] request(final Permission permission) {
+        return WildcardPermission.class == permission.getClass() ?
+                PermissionIndex.request(PermissionIndex.parse(permission.toString(), false), this::canonicalize) : null;
+    }
+
+    private static MethodHandle handle(final String name, final Class<?> param) {
+        try {
+            final Method method = AuthorizingRealm.class.getDeclaredMethod(name, param);
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (final NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean usesDefaultPermissionLogic(final Class<?> type) {
+        return declaringClass(type, "isPermitted", PrincipalCollection.class, String.class) == AuthorizingRealm.class
+                && declaringClass(type, "isPermitted", PrincipalCollection.class, Permission.class) == AuthorizingRealm.class
+                && declaringClass(type, "isPermitted", Permission.class, AuthorizationInfo.class) == AuthorizingRealm.class;
+    }
+
+    private static Class<?> declaringClass(final Class<?> type, final String name, final Class<?>... params) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            try {
+                current.getDeclaredMethod(name, params);
+                return current;
+            } catch (final NoSuchMethodException e) {
+                // check parent
+            }
+        }
+        return null;
+    }
+
+    private class RealmIndex {
+        private final Authorizer authorizer;
+        private final String name;
+        private final AuthorizingRealm realm;
+        private final boolean stableAuthorizationInfo;
+        private final BoundedCache<Object, PermissionIndex> cache;
+
+        private RealmIndex(final Realm realm) {
+            this.authorizer = Authorizer.class.cast(realm);
+            this.name = realm.getName();
+            if (AuthorizingRealm.class.isInstance(realm) && usesDefaultPermissionLogic(realm.getClass())) {
+                this.realm = AuthorizingRealm.class.cast(realm);
+                this.stableAuthorizationInfo = declaringClass(realm.getClass(), "getAuthorizationInfo", PrincipalCollection.class) != AuthorizingRealm.class;
+                this.cache = new BoundedCache<>(maxSize, 0, 16);
+            } else {
+                this.realm = null;
+                this.stableAuthorizationInfo = false;
+                this.cache = null;
+            }
+        }
+
+        private boolean isPermitted(final PrincipalCollection principals, final String permission) {
+            if (!isIndexable()) {
+                return authorizer.isPermitted(principals, permission);
+            }
+            final String[] request = requestFor(permission);
+            if (request == null) {
+                return authorizer.isPermitted(principals, permission);
+            }
+            return implies(index(principals), request, permission);
+        }
+
+        private void isPermitted(final PrincipalCollection principals, final List<String> permissions, final BitSet permitted) {
+            final boolean indexable = isIndexable();
+            PermissionIndex index = null;
+            boolean resolved = false;
+            for (int i = permitted.nextClearBit(0); i < permissions.size(); i = permitted.nextClearBit(i + 1)) {
+                final String permission = permissions.get(i);
+                final String[] request = indexable ? requestFor(permission) : null;
+                final boolean granted;
+                if (request == null) {
+                    granted = authorizer.isPermitted(principals, permission);
+                } else {
+                    if (!resolved) { // lazily: only if a permission can use it
+                        index = index(principals);
+                        resolved = true;
+                    }
+                    granted = implies(index, request, permission);
+                }
+                if (granted) {
+                    permitted.set(i);
+                }
+            }
+        }
+
+        private String[] requestFor(final String permission) {
+            return WildcardPermissionResolver.class == realm.getPermissionResolver().getClass() ?
+                    request(permission) : request(realm.getPermissionResolver().resolvePermission(permission));
+        }
+
+        private boolean implies(final PermissionIndex index, final String[] request, final String permission) {
+            return index != null && (index.implies(request)
+                    || (index.hasOthers() && index.othersImply(realm.getPermissionResolver().resolvePermission(permission))));
+        }
+
+        private boolean isPermitted(final PrincipalCollection principals, final Permission permission) {
+            if (!isIndexable()) {
+                return authorizer.isPermitted(principals, permission);
+            }
+            final String[] request = request(permission);
+            if (request == null) {
+                return authorizer.isPermitted(principals, permission);
+            }
+            final PermissionIndex index = index(principals);
+            return index != null && (index.implies(request) || (index.hasOthers() && index.othersImply(permission)));
+        }
+
+        // without a stable AuthorizationInfo instance we would rebuild the index for each check
+        private boolean isIndexable() {
+            return realm != null && realm.getPermissionResolver() != null && (stableAuthorizationInfo
+                    || (realm.isAuthorizationCachingEnabled() && (realm.getCacheManager() != null || realm.getAuthorizationCache() != null)));
+        }
+
+        private PermissionIndex index(final PrincipalCollection principals) {
+            final AuthorizationInfo info;
+            try {
+                info = (AuthorizationInfo) GET_AUTHORIZATION_INFO.invokeExact(realm, principals);
+            } catch (final RuntimeException | Error e) {
+                throw e;
+            } catch (final Throwable throwable) {
+                throw new IllegalStateException(throwable);
+            }
+            if (info == null) {
+                return null;
+            }
+            final PermissionIndex existing = cache.get(principals);
+            if (existing != null && existing.getSource() == info) {
+                if (indexStats != null) {
+                    indexStats.hit();
+                }
+                return existing;
+            }
+            if (indexStats != null) {
+                indexStats.miss();
+            }
+            final Collection<Permission> permissions;
+            try {
+                permissions = (Collection<Permission>) GET_PERMISSIONS.invokeExact(realm, info);
+            } catch (final RuntimeException | Error e) {
+                throw e;
+            } catch (final Throwable throwable) {
+                throw new IllegalStateException(throwable);
+            }
+            final PermissionIndex index = new PermissionIndex(info, permissions, interner);
+            cache.put(principals, index);
+            return index;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.github.rmannibucau.shiro.authz;
+
+import com.github.rmannibucau.shiro.metrics.CacheStats;
+import com.github.rmannibucau.shiro.metrics.SecurityMetrics;
+import org.apache.shiro.authz.AuthorizationException;
+import org.apache.shiro.authz.Authorizer;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.subject.PrincipalCollection;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+// memoizes single decisions while an AuthorizationMemo is bound, aggregated methods reuse them like ModularRealmAuthorizer does
+public class RequestCachingAuthorizer implements Authorizer, BatchAuthorizer {
+    private static final CacheStats STATS = SecurityMetrics.cache("request-memo");
+
+    private final Authorizer delegate;
+
+    public RequestCachingAuthorizer(final Authorizer delegate) {
+        this.delegate = delegate;
+    }
+
+    public Authorizer getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public boolean isPermitted(final PrincipalCollection principals, final String permission) {
+        final AuthorizationMemo.Decisions decisions = decisions(principals);
+        if (decisions == null) {
+            return delegate.isPermitted(principals, permission);
+        }
+        final Boolean cached = decisions.stringPermissions.get(permission);
+        if (cached != null) {
+            if (STATS != null) {
+                STATS.hit();
+            }
+            return cached;
+        }
+        if (STATS != null) {
+            STATS.miss();
+        }
+        final boolean permitted = delegate.isPermitted(principals, permission);
+        decisions.stringPermissions.put(permission, permitted);
+        return permitted;
+    }
+
+    @Override
+    public boolean isPermitted(final PrincipalCollection principals, final Permission permission) {
+        final AuthorizationMemo.Decisions decisions = decisions(principals);
+        if (decisions == null) {
+            return delegate.isPermitted(principals, permission);
+        }
+        final Boolean cached = decisions.permissions.get(permission);
+        if (cached != null) {
+            if (STATS != null) {
+                STATS.hit();
+            }
+            return cached;
+        }
+        if (STATS != null) {
+            STATS.miss();
+        }
+        final boolean permitted = delegate.isPermitted(principals, permission);
+        decisions.permissions.put(permission, permitted);
+        return permitted;
+    }
+
+    // memoized decisions are reused, the others go to the delegate in a single batch when possible
+    @Override
+    public BitSet permitted(final PrincipalCollection principals, final List<String> permissions) {
+        final AuthorizationMemo.Decisions decisions = decisions(principals);
+        if (decisions == null && BatchAuthorizer.class.isInstance(delegate)) {
+            return BatchAuthorizer.class.cast(delegate).permitted(principals, permissions);
+        }
+        final BitSet permitted = new BitSet(permissions.size());
+        if (decisions == null || !BatchAuthorizer.class.isInstance(delegate)) {
+            for (int i = 0; i < permissions.size(); i++) {
+                if (isPermitted(principals, permissions.get(i))) {
+                    permitted.set(i);
+                }
+            }
+            return permitted;
+        }
+        final List<String> missing = new ArrayList<>();
+        final List<Integer> missingIndexes = new ArrayList<>();
+        for (int i = 0; i < permissions.size(); i++) {
+            final Boolean cached = decisions.stringPermissions.get(permissions.get(i));
+            if (STATS != null) {
+                if (cached == null) {
+                    STATS.miss();
+                } else {
+                    STATS.hit();
+                }
+            }
+            if (cached == null) {
+                missing.add(permissions.get(i));
+                missingIndexes.add(i);
+            } else if (cached) {
+                permitted.set(i);
+            }
+        }
+        if (!missing.isEmpty()) {
+            final BitSet computed = BatchAuthorizer.class.cast(delegate).permitted(principals, missing);
+            for (int i = 0; i < missing.size(); i++) {
+                final boolean granted = computed.get(i);
+                decisions.stringPermissions.put(missing.get(i), granted);
+                if (granted) {
+                    permitted.set(missingIndexes.get(i));
+                }
+            }
+        }
+        return permitted;
+    }
+
+    @Override
+    public boolean[] isPermitted(final PrincipalCollection principals, final String... permissions) {
+        final boolean[] result = new boolean[permissions.length];
+        for (int i = 0; i < permissions.length; i++) {
+            result[i] = isPermitted(principals, permissions[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean[] isPermitted(final PrincipalCollection principals, final List<Permission> permissions) {
+        final boolean[] result = new boolean[permissions.size()];
+        int i = 0;
+        for (final Permission permission : permissions) {
+            result[i++] = isPermitted(principals, permission);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isPermittedAll(final PrincipalCollection principals, final String... permissions) {
+        for (final String permission : permissions) {
+            if (!isPermitted(principals, permission)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isPermittedAll(final PrincipalCollection principals, final Collection<Permission> permissions) {
+        for (final Permission permission : permissions) {
+            if (!isPermitted(principals, permission)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void checkPermission(final PrincipalCollection principals, final String permission) throws AuthorizationException {
+        if (!isPermitted(principals, permission)) {
+            delegate.checkPermission(principals, permission); // throws the right exception
+        }
+    }
+
+    @Override
+    public void checkPermission(final PrincipalCollection principals, final Permission permission) throws AuthorizationException {
+        if (!isPermitted(principals, permission)) {
+            delegate.checkPermission(principals, permission);
+        }
+    }
+
+    @Override
+    public void checkPermissions(final PrincipalCollection principals, final String... permissions) throws AuthorizationException {
+        for (final String permission : permissions) {
+            checkPermission(principals, permission);
+        }
+    }
+
+    @Override
+    public void checkPermissions(final PrincipalCollection principals, final Collection<Permission> permissions) throws AuthorizationException {
+        for (final Permission permission : permissions) {
+            checkPermission(principals, permission);
+        }
+    }
+
+    @Override
+    public boolean hasRole(final PrincipalCollection principals, final String role) {
+        final AuthorizationMemo.Decisions decisions = decisions(principals);
+        if (decisions == null) {
+            return delegate.hasRole(principals, role);
+        }
+        final Boolean cached = decisions.roles.get(role);
+        if (cached != null) {
+            if (STATS != null) {
+                STATS.hit();
+            }
+            return cached;
+        }
+        if (STATS != null) {
+            STATS.miss();
+        }
+        final boolean hasRole = delegate.hasRole(principals, role);
+        decisions.roles.put(role, hasRole);
+        return hasRole;
+    }
+
+    @Override
+    public boolean[] hasRoles(final PrincipalCollection principals, final List<String> roles) {
+        final boolean[] result = new boolean[roles.size()];
+        int i = 0;
+        for (final String role : roles) {
+            result[i++] = hasRole(principals, role);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean hasAllRoles(final PrincipalCollection principals, final Collection<String> roles) {
+        for (final String role : roles) {
+            if (!hasRole(principals, role)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void checkRole(final PrincipalCollection principals, final String role) throws AuthorizationException {
+        if (!hasRole(principals, role)) {
+            delegate.checkRole(principals, role);
+        }
+    }
+
+    @Override
+    public void checkRoles(final PrincipalCollection principals, final Collection<String> roles) throws AuthorizationException {
+        for (final String role : roles) {
+            checkRole(principals, role);
+        }
+    }
+
+    @Override
+    public void checkRoles(final PrincipalCollection principals, final String... roles) throws AuthorizationException {
+        for (final String role : roles) {
+            checkRole(principals, role);
+        }
+    }
+
+    private static AuthorizationMemo.Decisions decisions(final PrincipalCollection principals) {
+        final AuthorizationMemo memo = AuthorizationMemo.current();
+        if (memo == null || principals == null || principals.isEmpty()) {
+            return null;
+        }
+        return memo.decisions(principals.getPrimaryPrincipal());
+    }
+}
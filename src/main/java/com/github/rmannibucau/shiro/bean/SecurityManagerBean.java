@@ -12,6 +12,8 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptySet;
@@ -21,6 +23,8 @@ public class SecurityManagerBean implements Bean<SecurityManager> {
     private final Set<Annotation> qualifiers = new HashSet<>(asList(new DefaultLiteral(), new AnyLiteral()));
     private SecurityManager manager;
     private Class<?> type;
+    private volatile CompletableFuture<?> initialization; // lazy mode, null once the manager is configured
+    private volatile Thread initializer;
 
     public SecurityManagerBean(final Class<?> type) {
         this.type = type;
@@ -30,6 +34,11 @@ public class SecurityManagerBean implements Bean<SecurityManager> {
         this.manager = manager;
     }
 
+    public void setInitialization(final CompletableFuture<?> initialization, final Thread initializer) {
+        this.initializer = initializer;
+        this.initialization = initialization;
+    }
+
     @Override
     public Set<InjectionPoint> getInjectionPoints() {
         return emptySet();
@@ -47,6 +56,18 @@ public class SecurityManagerBean implements Bean<SecurityManager> {
 
     @Override
     public SecurityManager create(final CreationalContext<SecurityManager> context) {
+        final CompletableFuture<?> pending = initialization;
+        if (pending != null && Thread.currentThread() != initializer) { // the initializer can look it up while configuring it
+            try {
+                pending.get();
+                initialization = null;
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the security manager", e);
+            } catch (final ExecutionException e) {
+                throw new IllegalStateException("Security manager initialization failed", e.getCause());
+            }
+        }
         return manager;
     }
 
@@ -0,0 +1,14 @@
+package com.github.rmannibucau.shiro.bean;
+
+import com.github.rmannibucau.shiro.metrics.SecurityMetrics;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Produces;
+
+@ApplicationScoped
+public class SecurityMetricsProducer {
+    @Produces
+    public SecurityMetrics metrics() {
+        return SecurityMetrics.get();
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.rmannibucau.shiro.bean;
+
+import com.github.rmannibucau.shiro.authz.BatchPermissions;
+import com.github.rmannibucau.shiro.holder.SubjectHolders;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Named;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// batch permission checks of the current subject for templates (EL name) and JAX-RS resources (injection)
+@Named("subjectPermissions")
+@ApplicationScoped
+public class SubjectPermissions {
+    public BitSet permitted(final Collection<String> permissions) {
+        return BatchPermissions.permitted(SubjectHolders.current(), permissions);
+    }
+
+    // #{subjectPermissions.asMap(menuPermissions)['menu:admin']} is easier to read in a template than a bit index
+    public Map<String, Boolean> asMap(final Collection<String> permissions) {
+        final BitSet permitted = permitted(permissions);
+        final Map<String, Boolean> result = new LinkedHashMap<>();
+        int i = 0;
+        for (final String permission : permissions) {
+            result.put(permission, permitted.get(i++));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,193 @@
+package com.github.rmannibucau.shiro.bean;
+
+import com.github.rmannibucau.shiro.authz.BatchPermissions;
+import com.github.rmannibucau.shiro.holder.SubjectHolders;
+import org.apache.shiro.authc.AuthenticationException;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authz.AuthorizationException;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.session.Session;
+import org.apache.shiro.subject.ExecutionException;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.Subject;
+
+import javax.enterprise.inject.Vetoed;
+import java.io.Serializable;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+// stateless delegate to the thread bound subject, avoids the reflection of a java.lang.reflect.Proxy
+// vetoed: exposed through SubjectProducer only, otherwise any Subject injection would be ambiguous
+@Vetoed
+public class ThreadSubject implements Subject, Serializable {
+    protected Subject delegate() {
+        return SubjectHolders.current();
+    }
+
+    @Override
+    public Object getPrincipal() {
+        return delegate().getPrincipal();
+    }
+
+    @Override
+    public PrincipalCollection getPrincipals() {
+        return delegate().getPrincipals();
+    }
+
+    @Override
+    public boolean isPermitted(final String permission) {
+        return delegate().isPermitted(permission);
+    }
+
+    @Override
+    public boolean isPermitted(final Permission permission) {
+        return delegate().isPermitted(permission);
+    }
+
+    @Override
+    public boolean[] isPermitted(final String... permissions) {
+        return delegate().isPermitted(permissions);
+    }
+
+    @Override
+    public boolean[] isPermitted(final List<Permission> permissions) {
+        return delegate().isPermitted(permissions);
+    }
+
+    // batch isPermitted(): bit i is set when the i-th permission is granted, the authorization data are resolved once
+    public BitSet permitted(final Collection<String> permissions) {
+        return BatchPermissions.permitted(delegate(), permissions);
+    }
+
+    @Override
+    public boolean isPermittedAll(final String... permissions) {
+        return delegate().isPermittedAll(permissions);
+    }
+
+    @Override
+    public boolean isPermittedAll(final Collection<Permission> permissions) {
+        return delegate().isPermittedAll(permissions);
+    }
+
+    @Override
+    public void checkPermission(final String permission) throws AuthorizationException {
+        delegate().checkPermission(permission);
+    }
+
+    @Override
+    public void checkPermission(final Permission permission) throws AuthorizationException {
+        delegate().checkPermission(permission);
+    }
+
+    @Override
+    public void checkPermissions(final String... permissions) throws AuthorizationException {
+        delegate().checkPermissions(permissions);
+    }
+
+    @Override
+    public void checkPermissions(final Collection<Permission> permissions) throws AuthorizationException {
+        delegate().checkPermissions(permissions);
+    }
+
+    @Override
+    public boolean hasRole(final String role) {
+        return delegate().hasRole(role);
+    }
+
+    @Override
+    public boolean[] hasRoles(final List<String> roles) {
+        return delegate().hasRoles(roles);
+    }
+
+    @Override
+    public boolean hasAllRoles(final Collection<String> roles) {
+        return delegate().hasAllRoles(roles);
+    }
+
+    @Override
+    public void checkRole(final String role) throws AuthorizationException {
+        delegate().checkRole(role);
+    }
+
+    @Override
+    public void checkRoles(final Collection<String> roles) throws AuthorizationException {
+        delegate().checkRoles(roles);
+    }
+
+    @Override
+    public void checkRoles(final String... roles) throws AuthorizationException {
+        delegate().checkRoles(roles);
+    }
+
+    @Override
+    public void login(final AuthenticationToken token) throws AuthenticationException {
+        delegate().login(token);
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return delegate().isAuthenticated();
+    }
+
+    @Override
+    public boolean isRemembered() {
+        return delegate().isRemembered();
+    }
+
+    @Override
+    public Session getSession() {
+        return delegate().getSession();
+    }
+
+    @Override
+    public Session getSession(final boolean create) {
+        return delegate().getSession(create);
+    }
+
+    @Override
+    public void logout() {
+        delegate().logout();
+    }
+
+    @Override
+    public <V> V execute(final Callable<V> callable) throws ExecutionException {
+        return delegate().execute(callable);
+    }
+
+    @Override
+    public void execute(final Runnable runnable) {
+        delegate().execute(runnable);
+    }
+
+    @Override
+    public <V> Callable<V> associateWith(final Callable<V> callable) {
+        return delegate().associateWith(callable);
+    }
+
+    @Override
+    public Runnable associateWith(final Runnable runnable) {
+        return delegate().associateWith(runnable);
+    }
+
+    @Override
+    public void runAs(final PrincipalCollection principals) throws NullPointerException, IllegalStateException {
+        delegate().runAs(principals);
+    }
+
+    @Override
+    public boolean isRunAs() {
+        return delegate().isRunAs();
+    }
+
+    @Override
+    public PrincipalCollection getPreviousPrincipals() {
+        return delegate().getPreviousPrincipals();
+    }
+
+    @Override
+    public PrincipalCollection releaseRunAs() {
+        return delegate().releaseRunAs();
+    }
+}
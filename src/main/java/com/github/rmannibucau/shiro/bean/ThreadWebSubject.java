@@ -0,0 +1,21 @@
+package com.github.rmannibucau.shiro.bean;
+
+import org.apache.shiro.web.subject.WebSubject;
+
+import javax.enterprise.inject.Vetoed;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+// only loaded when shiro-web is there
+@Vetoed
+public class ThreadWebSubject extends ThreadSubject implements WebSubject {
+    @Override
+    public ServletRequest getServletRequest() {
+        return WebSubject.class.cast(delegate()).getServletRequest();
+    }
+
+    @Override
+    public ServletResponse getServletResponse() {
+        return WebSubject.class.cast(delegate()).getServletResponse();
+    }
+}
@@ -0,0 +1,195 @@
+package com.github.rmannibucau.shiro.cache;
+
+import com.github.rmannibucau.shiro.metrics.CacheStats;
+import org.apache.shiro.cache.Cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableSet;
+
+// lock striped LRU segments with an optional time to live (<= 0 means entries don't expire)
+public class BoundedCache<K, V> implements Cache<K, V> {
+    private final Segment<K, V>[] segments;
+    private final int mask;
+    private final long ttl;
+    private final CacheStats stats;
+
+    public BoundedCache(final int maxSize, final long ttlNanos, final int segmentCount) {
+        this(maxSize, ttlNanos, segmentCount, null);
+    }
+
+    public BoundedCache(final int maxSize, final long ttlNanos, final int segmentCount, final CacheStats stats) {
+        int count = 1;
+        while (count < segmentCount) {
+            count <<= 1;
+        }
+        final int segmentSize = Math.max(1, (maxSize + count - 1) / count);
+        this.segments = newSegments(count);
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(segmentSize);
+        }
+        this.mask = count - 1;
+        this.ttl = ttlNanos;
+        this.stats = stats;
+    }
+
+    @Override
+    public V get(final K key) {
+        final V value = doGet(key);
+        if (stats != null) {
+            if (value == null) {
+                stats.miss();
+            } else {
+                stats.hit();
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public V put(final K key, final V value) {
+        final Node<V> entry = new Node<>(value, ttl > 0 ? System.nanoTime() + ttl : 0);
+        final Segment<K, V> segment = segment(key);
+        final Node<V> previous;
+        synchronized (segment) {
+            previous = segment.put(key, entry);
+        }
+        return previous == null ? null : previous.value;
+    }
+
+    @Override
+    public V remove(final K key) {
+        final Segment<K, V> segment = segment(key);
+        final Node<V> previous;
+        synchronized (segment) {
+            previous = segment.remove(key);
+        }
+        return previous == null ? null : previous.value;
+    }
+
+    // evicts the matching (or expired) entries without building a key snapshot
+    public void removeIf(final BiPredicate<? super K, ? super V> predicate) {
+        final long now = System.nanoTime();
+        for (final Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.entrySet().removeIf(e -> e.getValue().expired(now) || predicate.test(e.getKey(), e.getValue().value));
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (final Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (final Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public Set<K> keys() {
+        final Set<K> keys = new HashSet<>();
+        final long now = System.nanoTime();
+        for (final Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                for (final Map.Entry<K, Node<V>> entry : segment.entrySet()) {
+                    if (!entry.getValue().expired(now)) {
+                        keys.add(entry.getKey());
+                    }
+                }
+            }
+        }
+        return unmodifiableSet(keys);
+    }
+
+    @Override
+    public Collection<V> values() {
+        final List<V> values = new ArrayList<>();
+        final long now = System.nanoTime();
+        for (final Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                for (final Node<V> entry : segment.values()) {
+                    if (!entry.expired(now)) {
+                        values.add(entry.value);
+                    }
+                }
+            }
+        }
+        return unmodifiableList(values);
+    }
+
+    private V doGet(final K key) {
+        final Segment<K, V> segment = segment(key);
+        synchronized (segment) {
+            final Node<V> entry = segment.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expired(System.nanoTime())) {
+                segment.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    private Segment<K, V> segment(final Object key) {
+        if (key == null) {
+            return segments[0];
+        }
+        final int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    private static class Node<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Node(final V value, final long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean expired(final long now) {
+            return expiresAt != 0 && now - expiresAt > 0;
+        }
+    }
+
+    @SuppressWarnings("unchecked") // only holds Segment<K, V>, the array never escapes
+    private static <K, V> Segment<K, V>[] newSegments(final int size) {
+        return (Segment<K, V>[]) new Segment<?, ?>[size];
+    }
+
+    private static class Segment<K, V> extends LinkedHashMap<K, Node<V>> {
+        private final int capacity;
+
+        private Segment(final int capacity) {
+            super(16, .75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<K, Node<V>> eldest) {
+            return size() > capacity;
+        }
+    }
+}
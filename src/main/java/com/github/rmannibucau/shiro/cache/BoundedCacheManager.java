@@ -0,0 +1,25 @@
+package com.github.rmannibucau.shiro.cache;
+
+import com.github.rmannibucau.shiro.metrics.SecurityMetrics;
+import org.apache.shiro.cache.AbstractCacheManager;
+import org.apache.shiro.cache.Cache;
+
+import java.util.concurrent.TimeUnit;
+
+// default cache manager when the application doesn't produce one
+public class BoundedCacheManager extends AbstractCacheManager {
+    private final int maxSize;
+    private final long ttl;
+    private final int segments;
+
+    public BoundedCacheManager(final int maxSize, final long ttlMs, final int segments) {
+        this.maxSize = maxSize;
+        this.ttl = ttlMs;
+        this.segments = segments;
+    }
+
+    @Override
+    protected Cache<Object, Object> createCache(final String name) {
+        return new BoundedCache<>(maxSize, TimeUnit.MILLISECONDS.toNanos(ttl), segments, SecurityMetrics.cache("cache:" + name));
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.rmannibucau.shiro.cache;
+
+// CDI event evicting the cached authentication/authorization data of a principal on all the nodes.
+// fire it without an origin (or use CacheInvalidator#invalidate), remote ones are fired with the sending node as origin.
+public class CacheInvalidation {
+    private final String principal;
+    private final String origin;
+
+    public CacheInvalidation(final Object principal) {
+        this(String.valueOf(principal), null);
+    }
+
+    public CacheInvalidation(final String principal, final String origin) {
+        this.principal = principal;
+        this.origin = origin;
+    }
+
+    public String getPrincipal() {
+        return principal;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public boolean isLocal() {
+        return origin == null;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheInvalidation{principal=" + principal + ", origin=" + origin + "}";
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.rmannibucau.shiro.cache;
+
+import org.apache.shiro.cache.Cache;
+import org.apache.shiro.mgt.RealmSecurityManager;
+import org.apache.shiro.mgt.SecurityManager;
+import org.apache.shiro.realm.AuthenticatingRealm;
+import org.apache.shiro.realm.AuthorizingRealm;
+import org.apache.shiro.realm.Realm;
+import org.apache.shiro.subject.PrincipalCollection;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.util.Collection;
+import java.util.UUID;
+
+// principal level evictions of the realm caches going through the CDI bus: local invalidations are applied
+// then published on the transport, received ones are fired again (with their origin) so applications can observe them too.
+// principals are compared with their string representation since it is what travels between nodes.
+@ApplicationScoped
+public class CacheInvalidator {
+    private final String node = UUID.randomUUID().toString();
+
+    @Inject
+    private Event<CacheInvalidation> events;
+
+    private volatile SecurityManager securityManager;
+    private volatile InvalidationTransport transport;
+
+    public synchronized void start(final SecurityManager securityManager, final InvalidationTransport transport) {
+        stop();
+        this.securityManager = securityManager;
+        this.transport = transport;
+        if (transport != null) {
+            transport.start(invalidation -> {
+                if (!node.equals(invalidation.getOrigin())) { // multicast loopback
+                    events.fire(invalidation);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (transport != null) {
+            transport.close();
+            transport = null;
+        }
+    }
+
+    public void invalidate(final Object principal) {
+        events.fire(new CacheInvalidation(principal));
+    }
+
+    void onInvalidation(@Observes final CacheInvalidation invalidation) {
+        evict(securityManager, invalidation.getPrincipal());
+        final InvalidationTransport current = transport;
+        if (invalidation.isLocal() && current != null) {
+            current.publish(new CacheInvalidation(invalidation.getPrincipal(), node));
+        }
+    }
+
+    public static void evict(final SecurityManager securityManager, final String principal) {
+        if (!RealmSecurityManager.class.isInstance(securityManager)) {
+            return;
+        }
+        final Collection<Realm> realms = RealmSecurityManager.class.cast(securityManager).getRealms();
+        if (realms == null) {
+            return;
+        }
+        for (final Realm realm : realms) {
+            if (AuthorizingRealm.class.isInstance(realm)) {
+                evict(AuthorizingRealm.class.cast(realm).getAuthorizationCache(), principal);
+            }
+            if (AuthenticatingRealm.class.isInstance(realm)) {
+                evict(AuthenticatingRealm.class.cast(realm).getAuthenticationCache(), principal);
+            }
+        }
+    }
+
+    private static <K, V> void evict(final Cache<K, V> cache, final String principal) {
+        if (cache == null) {
+            return;
+        }
+        if (BoundedCache.class.isInstance(cache)) {
+            ((BoundedCache<K, V>) cache).removeIf((key, value) -> matches(key, principal));
+            return;
+        }
+        for (final K key : cache.keys()) {
+            if (matches(key, principal)) {
+                cache.remove(key);
+            }
+        }
+    }
+
+    // authorization caches use the principals as key, authentication ones the token principal
+    private static boolean matches(final Object key, final String principal) {
+        if (PrincipalCollection.class.isInstance(key)) {
+            final PrincipalCollection principals = PrincipalCollection.class.cast(key);
+            return !principals.isEmpty() && principal.equals(String.valueOf(principals.getPrimaryPrincipal()));
+        }
+        return principal.equals(String.valueOf(key));
+    }
+}
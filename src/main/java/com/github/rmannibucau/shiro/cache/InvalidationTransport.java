@@ -0,0 +1,13 @@
+package com.github.rmannibucau.shiro.cache;
+
+import java.util.function.Consumer;
+
+// how invalidations reach the other nodes, a CDI bean of this type replaces the configured one.
+// implementations can deliver back the messages of the current node, they are filtered by origin.
+public interface InvalidationTransport {
+    void start(Consumer<CacheInvalidation> receiver);
+
+    void publish(CacheInvalidation invalidation);
+
+    void close();
+}
@@ -0,0 +1,51 @@
+package com.github.rmannibucau.shiro.cache;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+// in jvm transport (tests, several applications in the same container): transports of the same group see each other
+public class LocalInvalidationTransport implements InvalidationTransport {
+    private static final Map<String, Set<Consumer<CacheInvalidation>>> GROUPS = new ConcurrentHashMap<>();
+
+    private final String group;
+    private volatile Consumer<CacheInvalidation> receiver;
+
+    public LocalInvalidationTransport(final String group) {
+        this.group = group;
+    }
+
+    @Override
+    public void start(final Consumer<CacheInvalidation> receiver) {
+        this.receiver = receiver;
+        GROUPS.computeIfAbsent(group, g -> new CopyOnWriteArraySet<>()).add(receiver);
+    }
+
+    @Override
+    public void publish(final CacheInvalidation invalidation) {
+        final Set<Consumer<CacheInvalidation>> receivers = GROUPS.get(group);
+        if (receivers == null) {
+            return;
+        }
+        for (final Consumer<CacheInvalidation> member : receivers) {
+            if (member != receiver) {
+                member.accept(invalidation);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        final Consumer<CacheInvalidation> current = receiver;
+        if (current == null) {
+            return;
+        }
+        receiver = null;
+        GROUPS.computeIfPresent(group, (g, receivers) -> {
+            receivers.remove(current);
+            return receivers.isEmpty() ? null : receivers;
+        });
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.rmannibucau.shiro.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// udp multicast, fire and forget: a lost message means the entry lives until its ttl as without invalidation.
+// messages are plain strings (never deserialized objects), a forged one can only evict cache entries.
+public class MulticastInvalidationTransport implements InvalidationTransport {
+    private static final Logger LOGGER = Logger.getLogger(MulticastInvalidationTransport.class.getName());
+    private static final byte VERSION = 1;
+
+    private final InetAddress group;
+    private final int port;
+    private final int timeToLive;
+    private final String networkInterface;
+    private volatile MulticastSocket socket;
+    private NetworkInterface joined; // null: the socket default one
+
+    public MulticastInvalidationTransport(final InetAddress group, final int port, final int timeToLive, final String networkInterface) {
+        if (!group.isMulticastAddress()) {
+            throw new IllegalArgumentException(group + " is not a multicast address");
+        }
+        this.group = group;
+        this.port = port;
+        this.timeToLive = timeToLive;
+        this.networkInterface = networkInterface;
+    }
+
+    @Override
+    public synchronized void start(final Consumer<CacheInvalidation> receiver) {
+        if (socket != null) {
+            throw new IllegalStateException("Already started");
+        }
+        final MulticastSocket multicastSocket;
+        try {
+            multicastSocket = new MulticastSocket(port);
+            multicastSocket.setTimeToLive(timeToLive);
+            joined = networkInterface == null ? null : NetworkInterface.getByName(networkInterface);
+            if (joined != null) {
+                multicastSocket.setNetworkInterface(joined);
+            } else if (networkInterface != null) {
+                throw new IllegalArgumentException("Unknown network interface: " + networkInterface);
+            }
+            multicastSocket.joinGroup(new InetSocketAddress(group, port), joined);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Can't join " + group + ":" + port, e);
+        }
+        socket = multicastSocket;
+
+        final Thread thread = new Thread(() -> {
+            final byte[] buffer = new byte[65507];
+            while (!multicastSocket.isClosed()) {
+                final DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                try {
+                    multicastSocket.receive(packet);
+                } catch (final IOException e) {
+                    if (!multicastSocket.isClosed()) {
+                        LOGGER.log(Level.WARNING, e.getMessage(), e);
+                    }
+                    continue;
+                }
+                final CacheInvalidation invalidation = decode(packet);
+                if (invalidation != null) {
+                    try {
+                        receiver.accept(invalidation);
+                    } catch (final RuntimeException re) {
+                        LOGGER.log(Level.SEVERE, "Can't apply " + invalidation, re);
+                    }
+                }
+            }
+        }, "shiro-cdi-cache-invalidation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void publish(final CacheInvalidation invalidation) {
+        final MulticastSocket multicastSocket = socket;
+        if (multicastSocket == null) {
+            throw new IllegalStateException("Not started");
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (final DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(invalidation.getOrigin());
+            out.writeUTF(invalidation.getPrincipal());
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Can't encode " + invalidation, e);
+        }
+        try {
+            multicastSocket.send(new DatagramPacket(bytes.toByteArray(), bytes.size(), group, port));
+        } catch (final IOException e) {
+            LOGGER.log(Level.WARNING, "Can't publish " + invalidation, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        final MulticastSocket multicastSocket = socket;
+        if (multicastSocket == null) {
+            return;
+        }
+        socket = null;
+        try {
+            multicastSocket.leaveGroup(new InetSocketAddress(group, port), joined);
+        } catch (final IOException e) {
+            // no-op, closing anyway
+        }
+        multicastSocket.close();
+    }
+
+    private static CacheInvalidation decode(final DatagramPacket packet) {
+        try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(packet.getData(), packet.getOffset(), packet.getLength()))) {
+            if (in.readByte() != VERSION) {
+                return null;
+            }
+            final String origin = in.readUTF();
+            return new CacheInvalidation(in.readUTF(), origin);
+        } catch (final IOException e) { // not one of our messages
+            return null;
+        }
+    }
+}
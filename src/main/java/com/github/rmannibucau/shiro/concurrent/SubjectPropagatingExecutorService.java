@@ -0,0 +1,90 @@
+package com.github.rmannibucau.shiro.concurrent;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.stream.Collectors.toList;
+
+public class SubjectPropagatingExecutorService implements ExecutorService {
+    private final ExecutorService delegate;
+
+    public SubjectPropagatingExecutorService(final ExecutorService delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        delegate.execute(SubjectPropagation.wrap(command));
+    }
+
+    @Override
+    public Future<?> submit(final Runnable task) {
+        return delegate.submit(SubjectPropagation.wrap(task));
+    }
+
+    @Override
+    public <T> Future<T> submit(final Runnable task, final T result) {
+        return delegate.submit(SubjectPropagation.wrap(task), result);
+    }
+
+    @Override
+    public <T> Future<T> submit(final Callable<T> task) {
+        return delegate.submit(SubjectPropagation.wrap(task));
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(final Collection<? extends Callable<T>> tasks) throws InterruptedException {
+        return delegate.invokeAll(wrap(tasks));
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(final Collection<? extends Callable<T>> tasks, final long timeout, final TimeUnit unit) throws InterruptedException {
+        return delegate.invokeAll(wrap(tasks), timeout, unit);
+    }
+
+    @Override
+    public <T> T invokeAny(final Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
+        return delegate.invokeAny(wrap(tasks));
+    }
+
+    @Override
+    public <T> T invokeAny(final Collection<? extends Callable<T>> tasks, final long timeout, final TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return delegate.invokeAny(wrap(tasks), timeout, unit);
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    private static <T> List<Callable<T>> wrap(final Collection<? extends Callable<T>> tasks) {
+        return tasks.stream().map(SubjectPropagation::wrap).collect(toList());
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.rmannibucau.shiro.concurrent;
+
+import com.github.rmannibucau.shiro.holder.SubjectHolders;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.subject.support.SubjectThreadState;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+// captures the caller subject when a task is submitted and binds it in the worker thread for the task duration,
+// typically used in a producer: @Produces ExecutorService pool() { return SubjectPropagation.wrap(...); }
+public final class SubjectPropagation {
+    private SubjectPropagation() {
+        // no-op
+    }
+
+    public static Executor wrap(final Executor executor) {
+        if (ExecutorService.class.isInstance(executor)) {
+            return wrap(ExecutorService.class.cast(executor));
+        }
+        return command -> executor.execute(wrap(command));
+    }
+
+    // works with a ManagedExecutorService too since it is an ExecutorService
+    public static ExecutorService wrap(final ExecutorService executor) {
+        return executor instanceof SubjectPropagatingExecutorService ? executor : new SubjectPropagatingExecutorService(executor);
+    }
+
+    public static Runnable wrap(final Runnable task) {
+        final Subject subject = SubjectHolders.current();
+        if (subject == null) {
+            return task;
+        }
+        final SubjectThreadState state = new SubjectThreadState(subject);
+        return () -> {
+            state.bind();
+            try {
+                task.run();
+            } finally {
+                state.restore();
+            }
+        };
+    }
+
+    public static <T> Callable<T> wrap(final Callable<T> task) {
+        final Subject subject = SubjectHolders.current();
+        if (subject == null) {
+            return task;
+        }
+        final SubjectThreadState state = new SubjectThreadState(subject);
+        return () -> {
+            state.bind();
+            try {
+                return task.call();
+            } finally {
+                state.restore();
+            }
+        };
+    }
+
+    public static <T> Supplier<T> wrap(final Supplier<T> task) {
+        final Subject subject = SubjectHolders.current();
+        if (subject == null) {
+            return task;
+        }
+        final SubjectThreadState state = new SubjectThreadState(subject);
+        return () -> {
+            state.bind();
+            try {
+                return task.get();
+            } finally {
+                state.restore();
+            }
+        };
+    }
+
+    // reuse the returned stage executor for the *Async stages to keep the subject in those as well
+    public static <T> CompletableFuture<T> supplyAsync(final Supplier<T> supplier, final Executor executor) {
+        return CompletableFuture.supplyAsync(wrap(supplier), executor);
+    }
+
+    public static CompletableFuture<Void> runAsync(final Runnable runnable, final Executor executor) {
+        return CompletableFuture.runAsync(wrap(runnable), executor);
+    }
+}
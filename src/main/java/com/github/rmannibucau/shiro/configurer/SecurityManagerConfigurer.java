@@ -1,23 +1,64 @@
 package com.github.rmannibucau.shiro.configurer;
 
+import com.github.rmannibucau.shiro.authc.HmacTokenRealm;
+import com.github.rmannibucau.shiro.authc.HmacTokens;
+import com.github.rmannibucau.shiro.authc.ParallelRealmAuthenticator;
+import com.github.rmannibucau.shiro.authc.RecordingRealmAuthenticator;
+import com.github.rmannibucau.shiro.authc.VerifiedCredentialsCache;
+import com.github.rmannibucau.shiro.authz.PermissionIndexAuthorizer;
+import com.github.rmannibucau.shiro.cache.BoundedCacheManager;
+import com.github.rmannibucau.shiro.cache.CacheInvalidator;
+import com.github.rmannibucau.shiro.cache.InvalidationTransport;
+import com.github.rmannibucau.shiro.cache.LocalInvalidationTransport;
+import com.github.rmannibucau.shiro.cache.MulticastInvalidationTransport;
+import com.github.rmannibucau.shiro.event.AsyncEventBus;
+import com.github.rmannibucau.shiro.jfr.SecurityEvents;
 import com.github.rmannibucau.shiro.loader.Load;
+import com.github.rmannibucau.shiro.metrics.MeteredAuthenticator;
+import com.github.rmannibucau.shiro.metrics.SecurityMetrics;
+import com.github.rmannibucau.shiro.session.MappedSessionDAO;
+import com.github.rmannibucau.shiro.session.OffHeapSessionDAO;
+import com.github.rmannibucau.shiro.session.TimingWheelSessionValidationScheduler;
+import org.apache.shiro.authc.AbstractAuthenticator;
+import org.apache.shiro.authc.AuthenticationListener;
 import org.apache.shiro.authc.Authenticator;
+import org.apache.shiro.authc.pam.AtLeastOneSuccessfulStrategy;
+import org.apache.shiro.authc.pam.ModularRealmAuthenticator;
 import org.apache.shiro.authz.Authorizer;
+import org.apache.shiro.authz.ModularRealmAuthorizer;
 import org.apache.shiro.cache.CacheManager;
 import org.apache.shiro.event.EventBus;
+import org.apache.shiro.event.support.DefaultEventBus;
 import org.apache.shiro.mgt.DefaultSecurityManager;
 import org.apache.shiro.mgt.DefaultSubjectFactory;
 import org.apache.shiro.mgt.RememberMeManager;
 import org.apache.shiro.mgt.SecurityManager;
 import org.apache.shiro.mgt.SubjectDAO;
 import org.apache.shiro.mgt.SubjectFactory;
+import org.apache.shiro.realm.AuthenticatingRealm;
 import org.apache.shiro.realm.Realm;
+import org.apache.shiro.session.SessionListener;
+import org.apache.shiro.session.mgt.DefaultSessionManager;
 import org.apache.shiro.session.mgt.SessionManager;
+import org.apache.shiro.session.mgt.eis.MemorySessionDAO;
+import org.apache.shiro.session.mgt.eis.SessionDAO;
+import org.apache.shiro.util.Destroyable;
+import org.apache.shiro.util.LifecycleUtils;
 
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Event;
 import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
 
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.StreamSupport.stream;
@@ -51,14 +92,40 @@ public class SecurityManagerConfigurer {
     @Inject
     private Instance<SessionManager> sessionManager;
 
+    @Inject
+    private Instance<SessionDAO> sessionDAO;
+
     @Inject
     private Instance<RememberMeManager> rememberMeManager;
 
+    @Inject
+    private Instance<InvalidationTransport> invalidationTransport;
+
+    @Inject
+    private CacheInvalidator cacheInvalidator;
+
+    @Inject
+    private Instance<ShiroConfiguration> configuration;
+
     @Inject
     private Event<SecurityManager> securityManagerEvent;
 
-    // here we use that philosophy: if set it was configured in the security manager producer otherwise use the produced value if there
+    @Inject
+    private Event<Object> events;
+
+    // shiro doesn't destroy the session DAO with the session manager (it can be shared), only ours are released
+    private final Collection<Destroyable> created = new CopyOnWriteArrayList<>();
+
+    public ShiroConfiguration configuration(final Function<String, String> defaultSource) {
+        return configuration.isUnsatisfied() ? new ShiroConfiguration(defaultSource) : configuration.get();
+    }
+
     public SecurityManager configureManager(final SecurityManager manager) {
+        return configureManager(manager, configuration(k -> null));
+    }
+
+    // here we use that philosophy: if set it was configured in the security manager producer otherwise use the produced value if there
+    public SecurityManager configureManager(final SecurityManager manager, final ShiroConfiguration configuration) {
         if (!DefaultSecurityManager.class.isInstance(manager)) {
             securityManagerEvent.fire(manager); // to customize it through an observer
             return manager;
@@ -67,18 +134,73 @@ public class SecurityManagerConfigurer {
         if ((mgr.getRealms() == null || mgr.getRealms().isEmpty()) && !realm.isUnsatisfied()) {
             mgr.setRealms(stream(realm.spliterator(), false).collect(toList()));
         }
+        final String bearerSecret = configuration.get("shiro-cdi.bearer.secret", null);
+        if (bearerSecret != null && (mgr.getRealms() == null || mgr.getRealms().stream().noneMatch(HmacTokenRealm.class::isInstance))) {
+            final Collection<Realm> realms = mgr.getRealms() == null ? new ArrayList<>() : new ArrayList<>(mgr.getRealms());
+            realms.add(new HmacTokenRealm(new HmacTokens(bearerSecret.startsWith("base64:") ?
+                    Base64.getDecoder().decode(bearerSecret.substring("base64:".length())) : bearerSecret.getBytes(StandardCharsets.UTF_8)),
+                    configuration.getInt("shiro-cdi.bearer.cache.max-size", 10000)));
+            mgr.setRealms(realms);
+        }
         if (mgr.getAuthenticator() == null && !authenticator.isUnsatisfied()) {
             mgr.setAuthenticator(authenticator.get());
         }
-        if (mgr.getAuthorizer() == null && !authorizer.isUnsatisfied()) {
+        final boolean defaultAuthenticator = mgr.getAuthenticator() != null && ModularRealmAuthenticator.class == mgr.getAuthenticator().getClass();
+        if (defaultAuthenticator && mgr.getRealms() != null && mgr.getRealms().size() > 1 // and default strategy
+                && AtLeastOneSuccessfulStrategy.class == ModularRealmAuthenticator.class.cast(mgr.getAuthenticator()).getAuthenticationStrategy().getClass()
+                && configuration.getBoolean("shiro-cdi.authentication.parallel", true)) {
+            final int threads = configuration.getInt("shiro-cdi.authentication.parallel.threads", Math.max(2, Runtime.getRuntime().availableProcessors()));
+            final ParallelRealmAuthenticator parallel = new ParallelRealmAuthenticator(
+                    ParallelRealmAuthenticator.Mode.parse(configuration.get("shiro-cdi.authentication.parallel.mode", "at-least-one-success")),
+                    threads, configuration.getInt("shiro-cdi.authentication.parallel.queue", 1024));
+            final ModularRealmAuthenticator current = ModularRealmAuthenticator.class.cast(mgr.getAuthenticator());
+            parallel.setAuthenticationListeners(current.getAuthenticationListeners());
+            parallel.setRealms(mgr.getRealms());
+            mgr.setAuthenticator(parallel);
+        } else if (defaultAuthenticator && configuration.getBoolean("shiro-cdi.jfr.realms", false) && SecurityEvents.get().isAvailable()) {
+            mgr.setAuthenticator(RecordingRealmAuthenticator.from(ModularRealmAuthenticator.class.cast(mgr.getAuthenticator()), mgr.getRealms()));
+        }
+        if (AbstractAuthenticator.class.isInstance(mgr.getAuthenticator()) && mgr.getRealms() != null
+                && configuration.getBoolean("shiro-cdi.authentication.credentials-cache", false)) {
+            final VerifiedCredentialsCache credentialsCache = new VerifiedCredentialsCache(
+                    configuration.getInt("shiro-cdi.authentication.credentials-cache.max-size", 10000),
+                    configuration.getLong("shiro-cdi.authentication.credentials-cache.ttl", 60000),
+                    configuration.getBoolean("shiro-cdi.authentication.credentials-cache.evict-on-logout", true));
+            mgr.getRealms().stream()
+                    .filter(AuthenticatingRealm.class::isInstance)
+                    .map(AuthenticatingRealm.class::cast)
+                    .filter(r -> r.getCredentialsMatcher() != null)
+                    .forEach(r -> r.setCredentialsMatcher(credentialsCache.wrap(r.getCredentialsMatcher(), r.getName())));
+            final AbstractAuthenticator abstractAuthenticator = AbstractAuthenticator.class.cast(mgr.getAuthenticator());
+            final Collection<AuthenticationListener> listeners = new ArrayList<>(abstractAuthenticator.getAuthenticationListeners());
+            listeners.add(credentialsCache);
+            abstractAuthenticator.setAuthenticationListeners(listeners);
+        }
+        final boolean defaultAuthorizer = mgr.getAuthorizer() == null || ModularRealmAuthorizer.class == mgr.getAuthorizer().getClass(); // shiro default
+        if (defaultAuthorizer && !authorizer.isUnsatisfied()) {
             mgr.setAuthorizer(authorizer.get());
+        } else if (defaultAuthorizer && configuration.getBoolean("shiro-cdi.authorization.index", true)) {
+            mgr.setAuthorizer(new PermissionIndexAuthorizer(mgr.getRealms(), configuration.getInt("shiro-cdi.authorization.index.max-size", 10000)));
         }
         if (mgr.getCacheManager() == null && !cacheManager.isUnsatisfied()) {
             mgr.setCacheManager(cacheManager.get());
+        } else if (mgr.getCacheManager() == null && configuration.getBoolean("shiro-cdi.cache.enabled", true)) {
+            mgr.setCacheManager(new BoundedCacheManager(
+                    configuration.getInt("shiro-cdi.cache.max-size", 10000),
+                    configuration.getLong("shiro-cdi.cache.ttl", 300000),
+                    configuration.getInt("shiro-cdi.cache.segments", 16)));
         }
-        if (mgr.getEventBus() == null && !eventBus.isUnsatisfied()) {
+        final boolean defaultEventBus = mgr.getEventBus() == null || DefaultEventBus.class == mgr.getEventBus().getClass(); // always created by shiro
+        if (defaultEventBus && !eventBus.isUnsatisfied()) {
             mgr.setEventBus(eventBus.get());
         }
+        if (mgr.getEventBus() != null && !AsyncEventBus.class.isInstance(mgr.getEventBus())
+                && configuration.getBoolean("shiro-cdi.event-bus.async", false)) {
+            mgr.setEventBus(new AsyncEventBus(mgr.getEventBus(), events::fire,
+                    configuration.getInt("shiro-cdi.event-bus.async.capacity", 8192),
+                    configuration.getInt("shiro-cdi.event-bus.async.batch", 256),
+                    AsyncEventBus.Overflow.parse(configuration.get("shiro-cdi.event-bus.async.overflow", "block"))));
+        }
         if (mgr.getSubjectDAO() == null && !subjectDAO.isUnsatisfied()) {
             mgr.setSubjectDAO(subjectDAO.get());
         }
@@ -94,10 +216,69 @@ public class SecurityManagerConfigurer {
         if (mgr.getSessionManager() == null && !sessionManager.isUnsatisfied()) {
             mgr.setSessionManager(sessionManager.get());
         }
+        if (DefaultSessionManager.class.isInstance(mgr.getSessionManager())) { // native sessions
+            final DefaultSessionManager defaultSessionManager = DefaultSessionManager.class.cast(mgr.getSessionManager());
+            final boolean defaultSessionDAO = defaultSessionManager.getSessionDAO() == null || MemorySessionDAO.class == defaultSessionManager.getSessionDAO().getClass();
+            final String mappedSessions = configuration.get("shiro-cdi.session.mapped.path", null);
+            if (defaultSessionDAO && !sessionDAO.isUnsatisfied()) {
+                defaultSessionManager.setSessionDAO(sessionDAO.get());
+            } else if (defaultSessionDAO && mappedSessions != null) {
+                defaultSessionManager.setSessionDAO(created(new MappedSessionDAO(Paths.get(mappedSessions),
+                        configuration.getInt("shiro-cdi.session.mapped.size", 256 * 1024 * 1024),
+                        configuration.getLong("shiro-cdi.session.mapped.compaction-interval", 60000))));
+            } else if (defaultSessionDAO && configuration.getBoolean("shiro-cdi.session.off-heap", false)) {
+                defaultSessionManager.setSessionDAO(created(new OffHeapSessionDAO(
+                        configuration.getLong("shiro-cdi.session.off-heap.max-size", 256L * 1024 * 1024),
+                        configuration.getInt("shiro-cdi.session.off-heap.slab-size", 4 * 1024 * 1024),
+                        configuration.getInt("shiro-cdi.session.off-heap.stripes", 16))));
+            }
+            if (defaultSessionManager.getSessionValidationScheduler() == null
+                    && configuration.getBoolean("shiro-cdi.session.validation.timing-wheel", true)) {
+                final TimingWheelSessionValidationScheduler scheduler = new TimingWheelSessionValidationScheduler(
+                        defaultSessionManager, configuration.getLong("shiro-cdi.session.validation.tick", 1000));
+                final Collection<SessionListener> listeners = new ArrayList<>(defaultSessionManager.getSessionListeners());
+                listeners.add(scheduler);
+                defaultSessionManager.setSessionListeners(listeners);
+                defaultSessionManager.setSessionValidationScheduler(scheduler);
+            }
+        }
         if (mgr.getRememberMeManager() == null && !rememberMeManager.isUnsatisfied()) {
             mgr.setRememberMeManager(rememberMeManager.get());
         }
+        final String invalidation = configuration.get("shiro-cdi.cache.invalidation", null);
+        if (!invalidationTransport.isUnsatisfied()) {
+            cacheInvalidator.start(mgr, invalidationTransport.get());
+        } else if ("multicast".equalsIgnoreCase(invalidation)) {
+            final String group = configuration.get("shiro-cdi.cache.invalidation.multicast.group", "239.255.27.1");
+            try {
+                cacheInvalidator.start(mgr, new MulticastInvalidationTransport(InetAddress.getByName(group),
+                        configuration.getInt("shiro-cdi.cache.invalidation.multicast.port", 45588),
+                        configuration.getInt("shiro-cdi.cache.invalidation.multicast.ttl", 1),
+                        configuration.get("shiro-cdi.cache.invalidation.multicast.interface", null)));
+            } catch (final UnknownHostException e) {
+                throw new IllegalArgumentException("Invalid multicast group: " + group, e);
+            }
+        } else if ("local".equalsIgnoreCase(invalidation)) {
+            cacheInvalidator.start(mgr, new LocalInvalidationTransport(configuration.get("shiro-cdi.cache.invalidation.local.group", "default")));
+        } else { // still evicts locally on CacheInvalidation events
+            cacheInvalidator.start(mgr, null);
+        }
         securityManagerEvent.fire(manager); // to customize it through an observer
+        // wrapped last: setRealms() only reaches a ModularRealmAuthenticator set directly on the manager
+        if (SecurityMetrics.ENABLED && mgr.getAuthenticator() != null && !MeteredAuthenticator.class.isInstance(mgr.getAuthenticator())) {
+            mgr.setAuthenticator(new MeteredAuthenticator(mgr.getAuthenticator(), SecurityMetrics.get().authentication()));
+        }
         return manager;
     }
+
+    @PreDestroy
+    public void destroy() {
+        LifecycleUtils.destroy(created); // releases the mapped session file lock, the off-heap memory
+        created.clear();
+    }
+
+    private <T extends Destroyable> T created(final T instance) {
+        created.add(instance);
+        return instance;
+    }
 }
@@ -0,0 +1,30 @@
+package com.github.rmannibucau.shiro.configurer;
+
+import java.util.function.Function;
+
+import static java.util.Optional.ofNullable;
+
+// produce one in CDI to override the default lookup (servlet context init parameters then system properties)
+public class ShiroConfiguration {
+    private final Function<String, String> source;
+
+    public ShiroConfiguration(final Function<String, String> source) {
+        this.source = source;
+    }
+
+    public String get(final String key, final String defaultValue) {
+        return ofNullable(source.apply(key)).orElseGet(() -> System.getProperty(key, defaultValue));
+    }
+
+    public boolean getBoolean(final String key, final boolean defaultValue) {
+        return Boolean.parseBoolean(get(key, Boolean.toString(defaultValue)));
+    }
+
+    public int getInt(final String key, final int defaultValue) {
+        return Integer.parseInt(get(key, Integer.toString(defaultValue)).trim());
+    }
+
+    public long getLong(final String key, final long defaultValue) {
+        return Long.parseLong(get(key, Long.toString(defaultValue)).trim());
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.rmannibucau.shiro.event;
+
+import org.apache.shiro.event.EventBus;
+import org.apache.shiro.util.Destroyable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// publish() only enqueues the event in a ring buffer, a single dispatcher thread drains it by batches and
+// delivers each event to the delegate bus (@Subscribe subscribers) then to the sink (CDI observers).
+// a full buffer blocks the publisher or drops the event depending on the overflow policy.
+public class AsyncEventBus implements EventBus, Destroyable {
+    private static final Logger LOGGER = Logger.getLogger(AsyncEventBus.class.getName());
+
+    public enum Overflow {
+        BLOCK, DROP;
+
+        public static Overflow parse(final String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final EventBus delegate;
+    private final Consumer<Object> sink;
+    private final Overflow overflow;
+    private final int batchSize;
+    private final MpscRingBuffer<Object> buffer;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread dispatcher;
+    private volatile boolean sleeping;
+    private volatile boolean running = true;
+
+    public AsyncEventBus(final EventBus delegate, final Consumer<Object> sink, final int capacity, final int batchSize, final Overflow overflow) {
+        this.delegate = delegate;
+        this.sink = sink;
+        this.overflow = overflow;
+        this.batchSize = Math.max(1, batchSize);
+        this.buffer = new MpscRingBuffer<>(capacity);
+        this.dispatcher = new Thread(this::dispatch, "shiro-cdi-event-bus");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.setContextClassLoader(Thread.currentThread().getContextClassLoader());
+        this.dispatcher.start();
+    }
+
+    @Override
+    public void publish(final Object event) {
+        if (event == null) {
+            return;
+        }
+        if (!running) {
+            throw new IllegalStateException("Event bus destroyed");
+        }
+        while (!buffer.offer(event)) {
+            if (overflow == Overflow.DROP) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.unpark(dispatcher);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50)); // wait for the dispatcher to free slots
+            if (!running) {
+                throw new IllegalStateException("Event bus destroyed");
+            }
+        }
+        if (sleeping) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    @Override
+    public void register(final Object subscriber) {
+        delegate.register(subscriber);
+    }
+
+    @Override
+    public void unregister(final Object subscriber) {
+        delegate.unregister(subscriber);
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    // pending events are still delivered
+    @Override
+    public void destroy() {
+        running = false;
+        LockSupport.unpark(dispatcher);
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatch() {
+        final List<Object> batch = new ArrayList<>(batchSize);
+        while (true) {
+            if (buffer.drainTo(batch, batchSize) == 0) {
+                if (!running) {
+                    return;
+                }
+                sleeping = true;
+                if (buffer.isEmpty() && running) { // re-check after the flag to not miss an unpark
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                }
+                sleeping = false;
+                continue;
+            }
+            for (final Object event : batch) {
+                try {
+                    delegate.publish(event);
+                    sink.accept(event);
+                } catch (final RuntimeException re) { // never kill the dispatcher
+                    LOGGER.log(Level.SEVERE, "Can't dispatch " + event, re);
+                }
+            }
+            try {
+                sink.accept(new EventBatch(Collections.unmodifiableList(new ArrayList<>(batch))));
+            } catch (final RuntimeException re) {
+                LOGGER.log(Level.SEVERE, re.getMessage(), re);
+            }
+            batch.clear();
+        }
+    }
+}
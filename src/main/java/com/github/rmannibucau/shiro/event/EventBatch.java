@@ -0,0 +1,16 @@
+package com.github.rmannibucau.shiro.event;
+
+import java.util.List;
+
+// fired after each dispatched batch so audit sinks can write in bulk
+public class EventBatch {
+    private final List<Object> events;
+
+    public EventBatch(final List<Object> events) {
+        this.events = events;
+    }
+
+    public List<Object> getEvents() {
+        return events;
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.rmannibucau.shiro.event;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// bounded multi producer single consumer queue (sequence per slot as in Vyukov's bounded queue):
+// producers claim a position with a CAS, the slot sequence tells the consumer when it is published
+// and producers when it is free again. no lock and no allocation per element.
+final class MpscRingBuffer<T> {
+    private final AtomicReferenceArray<T> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final int mask;
+    private long head; // consumer thread only
+
+    MpscRingBuffer(final int requestedCapacity) {
+        int capacity = 2;
+        while (capacity < requestedCapacity) {
+            capacity <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    boolean offer(final T value) {
+        while (true) {
+            final long position = tail.get();
+            final int index = (int) (position & mask);
+            final long delta = sequences.get(index) - position;
+            if (delta == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, value);
+                    sequences.set(index, position + 1); // publishes the value
+                    return true;
+                }
+            } else if (delta < 0) {
+                return false; // the consumer didn't free this slot yet
+            } // else another producer claimed it, retry with the new tail
+        }
+    }
+
+    // consumer side: moves up to max published values to the batch
+    int drainTo(final List<T> batch, final int max) {
+        int count = 0;
+        while (count < max) {
+            final int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            batch.add(slots.get(index));
+            slots.lazySet(index, null);
+            sequences.set(index, head + mask + 1); // free for the producer one lap later
+            head++;
+            count++;
+        }
+        return count;
+    }
+
+    boolean isEmpty() {
+        return sequences.get((int) (head & mask)) != head + 1;
+    }
+}
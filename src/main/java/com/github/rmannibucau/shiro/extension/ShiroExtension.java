@@ -1,8 +1,16 @@
 package com.github.rmannibucau.shiro.extension;
 
+import com.github.rmannibucau.shiro.authz.AsyncAuthorizer;
+import com.github.rmannibucau.shiro.authz.ExecutorAsyncAuthorizer;
 import com.github.rmannibucau.shiro.bean.SecurityManagerBean;
+import com.github.rmannibucau.shiro.index.SecuredIndex;
+import com.github.rmannibucau.shiro.interceptor.AsyncAuthorization;
+import com.github.rmannibucau.shiro.interceptor.AuthorizationPlan;
+import com.github.rmannibucau.shiro.interceptor.FusedShiroInterceptor;
 import com.github.rmannibucau.shiro.interceptor.ShiroInterceptorBridge;
+import com.github.rmannibucau.shiro.metrics.SecurityMetrics;
 import com.github.rmannibucau.shiro.wrap.NonBindingAnnotation;
+import com.github.rmannibucau.shiro.wrap.SecuredAnnotatedType;
 import org.apache.shiro.authz.annotation.RequiresAuthentication;
 import org.apache.shiro.authz.annotation.RequiresGuest;
 import org.apache.shiro.authz.annotation.RequiresPermissions;
@@ -14,22 +22,52 @@ import org.apache.shiro.mgt.SecurityManager;
 import javax.enterprise.event.Observes;
 import javax.enterprise.inject.spi.AfterBeanDiscovery;
 import javax.enterprise.inject.spi.AfterDeploymentValidation;
+import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.inject.spi.BeanManager;
 import javax.enterprise.inject.spi.BeforeBeanDiscovery;
+import javax.enterprise.inject.spi.BeforeShutdown;
 import javax.enterprise.inject.spi.Extension;
+import javax.enterprise.inject.spi.ProcessAnnotatedType;
 import javax.enterprise.inject.spi.ProcessBean;
+import javax.enterprise.inject.spi.ProcessManagedBean;
+import javax.enterprise.inject.spi.WithAnnotations;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import static com.github.rmannibucau.shiro.loader.Load.load;
+import static java.util.Arrays.asList;
 
 public class ShiroExtension implements Extension {
+    private static final Collection<Class<? extends Annotation>> SHIRO_ANNOTATIONS = asList(
+            RequiresRoles.class, RequiresPermissions.class, RequiresAuthentication.class, RequiresUser.class, RequiresGuest.class);
+
+    private final boolean fused = Boolean.getBoolean("shiro-cdi.interceptors.fused");
+    private final boolean index = Boolean.parseBoolean(System.getProperty("shiro-cdi.index", "true"));
+    private final Collection<Class<?>> beanClasses = new HashSet<>();
     private boolean securityManager;
     private SecurityManagerBean bean;
     private SecurityManager manager;
+    private ExecutorService asyncAuthorizationPool;
+    private ExecutorService asyncInvocationPool;
 
     void makeShiroAnnotationsInterceptorBindings(@Observes final BeforeBeanDiscovery beforeBeanDiscovery, final BeanManager bm) {
-        Stream.of(RequiresRoles.class, RequiresPermissions.class, RequiresAuthentication.class, RequiresUser.class, RequiresGuest.class)
-                .forEach(type -> beforeBeanDiscovery.addInterceptorBinding(new NonBindingAnnotation<>(bm.createAnnotatedType(type))));
+        SHIRO_ANNOTATIONS.forEach(type -> beforeBeanDiscovery.addInterceptorBinding(new NonBindingAnnotation<>(bm.createAnnotatedType(type))));
+        if (fused) {
+            beforeBeanDiscovery.addAnnotatedType(bm.createAnnotatedType(FusedShiroInterceptor.class));
+            return;
+        }
         Stream.of(
                 ShiroInterceptorBridge.RequiresRolesInterceptor.class,
                 ShiroInterceptorBridge.RequirePermissionsInterceptor.class,
@@ -39,6 +77,21 @@ public class ShiroExtension implements Extension {
         ).forEach(t -> beforeBeanDiscovery.addAnnotatedType(bm.createAnnotatedType(t)));
     }
 
+    void skipSplitInterceptorsIfFused(@Observes final ProcessAnnotatedType<? extends ShiroInterceptorBridge> pat) {
+        if (fused) {
+            pat.veto();
+        }
+    }
+
+    <T> void bindFusedInterceptor(@Observes @WithAnnotations({
+            RequiresRoles.class, RequiresPermissions.class, RequiresAuthentication.class, RequiresUser.class, RequiresGuest.class
+    }) final ProcessAnnotatedType<T> pat) {
+        if (!fused || ShiroInterceptorBridge.class.isAssignableFrom(pat.getAnnotatedType().getJavaClass())) {
+            return;
+        }
+        pat.setAnnotatedType(new SecuredAnnotatedType<>(pat.getAnnotatedType(), a -> SHIRO_ANNOTATIONS.contains(a.annotationType())));
+    }
+
     void hasSecurityManager(@Observes final ProcessBean<SecurityManager> securityManagerProcessBean) {
         securityManager = securityManager || !SecurityManagerBean.class.isInstance(securityManagerProcessBean.getBean());
     }
@@ -58,6 +111,97 @@ public class ShiroExtension implements Extension {
         }
     }
 
+    void collectBeanClasses(@Observes final ProcessManagedBean<?> processManagedBean) {
+        if (index) {
+            beanClasses.add(processManagedBean.getAnnotatedBeanClass().getJavaClass());
+        }
+    }
+
+    // plans are looked up with the bean class at runtime so prepare them for the beans declaring or inheriting indexed methods
+    void prepareAuthorizationPlans(@Observes final AfterDeploymentValidation afterDeploymentValidation) {
+        if (!index) {
+            return;
+        }
+        final ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+        final ClassLoader loader = contextLoader != null ? contextLoader : ShiroExtension.class.getClassLoader();
+        final Map<Class<?>, Collection<Method>> indexed = new HashMap<>();
+        SecuredIndex.load(loader).forEachMethod(loader, (type, method) -> indexed.computeIfAbsent(type, k -> new ArrayList<>()).add(method));
+        if (!indexed.isEmpty()) {
+            for (final Class<?> beanClass : beanClasses) {
+                for (Class<?> type = beanClass; type != null && type != Object.class; type = type.getSuperclass()) {
+                    final Collection<Method> methods = indexed.get(type);
+                    if (methods != null) {
+                        for (final Method method : methods) {
+                            AuthorizationPlan.prepare(method, beanClass);
+                        }
+                    }
+                }
+            }
+        }
+        beanClasses.clear();
+    }
+
+    void registerMetrics(@Observes final AfterDeploymentValidation afterDeploymentValidation) {
+        SecurityMetrics.register();
+    }
+
+    void unregisterMetrics(@Observes final BeforeShutdown beforeShutdown) {
+        SecurityMetrics.unregister();
+    }
+
+    void initAsyncAuthorizer(@Observes final AfterDeploymentValidation afterDeploymentValidation, final BeanManager bm) {
+        if (!AsyncAuthorization.isEnabled()) {
+            return;
+        }
+        initAsyncInvocationExecutor(bm);
+        final Set<Bean<?>> beans = bm.getBeans(AsyncAuthorizer.class);
+        if (!beans.isEmpty()) {
+            final Bean<?> authorizer = bm.resolve(beans);
+            AsyncAuthorization.setAuthorizer(AsyncAuthorizer.class.cast(
+                    bm.getReference(authorizer, AsyncAuthorizer.class, bm.createCreationalContext(null))));
+            return;
+        }
+        asyncAuthorizationPool = newPool("shiro-cdi-authorization-",
+                Integer.getInteger("shiro-cdi.interceptors.async.threads", Runtime.getRuntime().availableProcessors()));
+        AsyncAuthorization.setAuthorizer(new ExecutorAsyncAuthorizer(asyncAuthorizationPool));
+    }
+
+    // where the secured method runs once authorized, a named Executor bean (ManagedExecutorService...) can propagate contexts
+    private void initAsyncInvocationExecutor(final BeanManager bm) {
+        final Set<Bean<?>> beans = bm.getBeans("shiro-cdi.interceptors.async.executor");
+        if (!beans.isEmpty()) {
+            final Bean<?> executor = bm.resolve(beans);
+            AsyncAuthorization.setExecutor(Executor.class.cast(
+                    bm.getReference(executor, Executor.class, bm.createCreationalContext(null))));
+            return;
+        }
+        asyncInvocationPool = newPool("shiro-cdi-invocation-",
+                Integer.getInteger("shiro-cdi.interceptors.async.invocation-threads", Runtime.getRuntime().availableProcessors()));
+        AsyncAuthorization.setExecutor(asyncInvocationPool);
+    }
+
+    void shutdownAsyncAuthorizer(@Observes final BeforeShutdown beforeShutdown) {
+        if (asyncAuthorizationPool != null) {
+            AsyncAuthorization.setAuthorizer(null);
+            asyncAuthorizationPool.shutdownNow();
+        }
+        if (asyncInvocationPool != null) {
+            AsyncAuthorization.setExecutor(null);
+            asyncInvocationPool.shutdownNow();
+        }
+    }
+
+    private static ExecutorService newPool(final String prefix, final int threads) {
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        final AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            final Thread thread = new Thread(r, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(loader);
+            return thread;
+        });
+    }
+
     public boolean isSecurityManager() {
         return securityManager;
     }
@@ -73,4 +217,11 @@ public class ShiroExtension implements Extension {
     public SecurityManager getSecurityManager() {
         return manager;
     }
+
+    // lazy mode: the provided SecurityManager is configured in background, injections wait for it
+    public void setInitialization(final CompletableFuture<?> initialization, final Thread initializer) {
+        if (bean != null) {
+            bean.setInitialization(initialization, initializer);
+        }
+    }
 }
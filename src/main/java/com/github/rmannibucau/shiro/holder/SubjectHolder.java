@@ -0,0 +1,13 @@
+package com.github.rmannibucau.shiro.holder;
+
+import org.apache.shiro.subject.Subject;
+
+// where the library reads/binds the current subject, see SubjectHolders to select the implementation
+public interface SubjectHolder {
+    Subject current();
+
+    // returns the previous subject to pass to restore()
+    Subject bind(Subject subject);
+
+    void restore(Subject previous);
+}
@@ -0,0 +1,80 @@
+package com.github.rmannibucau.shiro.holder;
+
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.subject.Subject;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// holder selection: META-INF/services/com.github.rmannibucau.shiro.holder.SubjectHolder,
+// then shiro-cdi.subject-holder system property or context init parameter (thread-context, thread-local or a class name).
+// the init parameter only applies to the application classloader it is set for since the library can be shared by several webapps
+public final class SubjectHolders {
+    private static final ConcurrentMap<ClassLoader, SubjectHolder> APPLICATION_HOLDERS = new ConcurrentHashMap<>();
+
+    private static volatile SubjectHolder holder = load();
+    private static volatile boolean scoped; // avoids the lookup when no application overrides the holder
+
+    private SubjectHolders() {
+        // no-op
+    }
+
+    public static SubjectHolder get() {
+        if (!scoped) {
+            return holder;
+        }
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        final SubjectHolder application = loader == null ? null : APPLICATION_HOLDERS.get(loader);
+        return application != null ? application : holder;
+    }
+
+    // default of the JVM
+    public static void set(final SubjectHolder subjectHolder) {
+        holder = subjectHolder;
+    }
+
+    // holder of the application running with this context classloader, must be removed when the application stops
+    public static synchronized void set(final ClassLoader loader, final SubjectHolder subjectHolder) {
+        APPLICATION_HOLDERS.put(loader, subjectHolder);
+        scoped = true;
+    }
+
+    public static synchronized void remove(final ClassLoader loader) {
+        APPLICATION_HOLDERS.remove(loader);
+        scoped = !APPLICATION_HOLDERS.isEmpty();
+    }
+
+    public static Subject current() {
+        return get().current();
+    }
+
+    // same as SecurityUtils.getSubject() if nothing is bound in the holder
+    public static Subject currentOrCreate() {
+        final Subject subject = get().current();
+        return subject != null ? subject : SecurityUtils.getSubject();
+    }
+
+    public static SubjectHolder create(final String value) {
+        if (value == null || "thread-context".equals(value)) {
+            return new ThreadContextSubjectHolder();
+        }
+        if ("thread-local".equals(value)) {
+            return new ThreadLocalSubjectHolder();
+        }
+        try {
+            return SubjectHolder.class.cast(SubjectHolders.class.getClassLoader().loadClass(value).getDeclaredConstructor().newInstance());
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static SubjectHolder load() {
+        final Iterator<SubjectHolder> spi = ServiceLoader.load(SubjectHolder.class, SubjectHolders.class.getClassLoader()).iterator();
+        if (spi.hasNext()) {
+            return spi.next();
+        }
+        return create(System.getProperty("shiro-cdi.subject-holder"));
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.rmannibucau.shiro.holder;
+
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+
+import javax.enterprise.inject.Vetoed;
+
+// shiro default: an inheritable thread local map
+@Vetoed // selected through SubjectHolders, not a bean
+public class ThreadContextSubjectHolder implements SubjectHolder {
+    @Override
+    public Subject current() {
+        return ThreadContext.getSubject();
+    }
+
+    @Override
+    public Subject bind(final Subject subject) {
+        final Subject previous = ThreadContext.getSubject();
+        ThreadContext.bind(subject);
+        return previous;
+    }
+
+    @Override
+    public void restore(final Subject previous) {
+        if (previous == null) {
+            ThreadContext.unbindSubject();
+        } else {
+            ThreadContext.bind(previous);
+        }
+    }
+}
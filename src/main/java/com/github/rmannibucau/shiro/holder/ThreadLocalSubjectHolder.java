@@ -0,0 +1,35 @@
+package com.github.rmannibucau.shiro.holder;
+
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+
+import javax.enterprise.inject.Vetoed;
+
+// a single non inheritable slot: no map per thread and nothing copied when a (virtual) thread is created,
+// falls back on ThreadContext for code binding the subject the shiro way (SubjectThreadState, Subject#execute...)
+@Vetoed // selected through SubjectHolders, not a bean
+public class ThreadLocalSubjectHolder implements SubjectHolder {
+    private static final ThreadLocal<Subject> SLOT = new ThreadLocal<>();
+
+    @Override
+    public Subject current() {
+        final Subject subject = SLOT.get();
+        return subject != null ? subject : ThreadContext.getSubject();
+    }
+
+    @Override
+    public Subject bind(final Subject subject) {
+        final Subject previous = SLOT.get();
+        SLOT.set(subject);
+        return previous;
+    }
+
+    @Override
+    public void restore(final Subject previous) {
+        if (previous == null) {
+            SLOT.remove();
+        } else {
+            SLOT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.rmannibucau.shiro.http;
+
+import com.github.rmannibucau.shiro.authc.BearerToken;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.subject.support.DefaultSubjectContext;
+import org.apache.shiro.web.filter.authc.AuthenticatingFilter;
+
+import javax.enterprise.inject.Vetoed;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+// "Authorization: Bearer xxx" login on each request without any session (no session store traffic),
+// a missing or rejected token is a 401
+@Vetoed // beans.xml is in "all" mode, don't compete with application beans
+public class BearerTokenFilter extends AuthenticatingFilter {
+    private static final String PREFIX = "Bearer ";
+
+    @Override
+    protected AuthenticationToken createToken(final ServletRequest request, final ServletResponse response) {
+        return new BearerToken(token(request), getHost(request));
+    }
+
+    @Override
+    protected boolean onAccessDenied(final ServletRequest request, final ServletResponse response) throws Exception {
+        request.setAttribute(DefaultSubjectContext.SESSION_CREATION_ENABLED, Boolean.FALSE); // as NoSessionCreationFilter
+        if (token(request) != null && executeLogin(request, response)) {
+            return true;
+        }
+        final HttpServletResponse httpServletResponse = HttpServletResponse.class.cast(response);
+        httpServletResponse.setHeader("WWW-Authenticate", "Bearer");
+        httpServletResponse.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+        return false;
+    }
+
+    private static String token(final ServletRequest request) {
+        final String header = HttpServletRequest.class.cast(request).getHeader("Authorization");
+        if (header == null || header.length() <= PREFIX.length() || !header.regionMatches(true, 0, PREFIX, 0, PREFIX.length())) {
+            return null;
+        }
+        return header.substring(PREFIX.length()).trim();
+    }
+}
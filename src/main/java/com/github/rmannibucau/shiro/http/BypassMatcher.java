@@ -0,0 +1,91 @@
+package com.github.rmannibucau.shiro.http;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.stream.Stream;
+
+// servlet mapping like patterns ("/static/*", "*.css", "/health") compiled once,
+// matching works on servletPath + pathInfo (decoded and normalized by the container) without concatenating them
+public class BypassMatcher {
+    private final String[] exacts;
+    private final String[] prefixes;
+    private final String[] extensions;
+    private final boolean all;
+
+    public BypassMatcher(final String patterns) {
+        final Collection<String> exacts = new ArrayList<>();
+        final Collection<String> prefixes = new ArrayList<>();
+        final Collection<String> extensions = new ArrayList<>();
+        boolean all = false;
+        if (patterns != null) {
+            for (final String pattern : Stream.of(patterns.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toArray(String[]::new)) {
+                if ("/*".equals(pattern) || "/**".equals(pattern)) {
+                    all = true;
+                } else if (pattern.startsWith("*.")) {
+                    extensions.add(pattern.substring(1));
+                } else if (pattern.endsWith("/**")) {
+                    addPrefix(exacts, prefixes, pattern.substring(0, pattern.length() - "/**".length()));
+                } else if (pattern.endsWith("/*")) {
+                    addPrefix(exacts, prefixes, pattern.substring(0, pattern.length() - "/*".length()));
+                } else {
+                    exacts.add(pattern);
+                }
+            }
+        }
+        this.exacts = exacts.toArray(new String[exacts.size()]);
+        this.prefixes = prefixes.toArray(new String[prefixes.size()]);
+        this.extensions = extensions.toArray(new String[extensions.size()]);
+        this.all = all;
+    }
+
+    public boolean isEmpty() {
+        return !all && exacts.length == 0 && prefixes.length == 0 && extensions.length == 0;
+    }
+
+    public boolean matches(final HttpServletRequest request) {
+        if (all) {
+            return true;
+        }
+        final String servletPath = request.getServletPath();
+        final String pathInfo = request.getPathInfo();
+        return matches(servletPath == null ? "" : servletPath, pathInfo == null ? "" : pathInfo);
+    }
+
+    boolean matches(final String servletPath, final String pathInfo) {
+        final int length = servletPath.length() + pathInfo.length();
+        for (final String exact : exacts) {
+            if (exact.length() == length && startsWith(servletPath, pathInfo, exact)) {
+                return true;
+            }
+        }
+        for (final String prefix : prefixes) {
+            if (length >= prefix.length() && startsWith(servletPath, pathInfo, prefix)) {
+                return true;
+            }
+        }
+        for (final String extension : extensions) {
+            if (pathInfo.isEmpty() ? servletPath.endsWith(extension) : pathInfo.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWith(final String servletPath, final String pathInfo, final String value) {
+        final int servletPathLength = servletPath.length();
+        if (value.length() <= servletPathLength) {
+            return servletPath.startsWith(value);
+        }
+        return value.startsWith(servletPath) && pathInfo.regionMatches(0, value, servletPathLength, value.length() - servletPathLength);
+    }
+
+    private static void addPrefix(final Collection<String> exacts, final Collection<String> prefixes, final String base) {
+        if (base.isEmpty()) {
+            prefixes.add("/");
+            return;
+        }
+        exacts.add(base); // "/static/*" matches "/static" too
+        prefixes.add(base + '/');
+    }
+}
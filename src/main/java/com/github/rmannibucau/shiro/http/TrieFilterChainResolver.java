@@ -0,0 +1,207 @@
+package com.github.rmannibucau.shiro.http;
+
+import com.github.rmannibucau.shiro.cache.BoundedCache;
+import com.github.rmannibucau.shiro.metrics.SecurityMetrics;
+import org.apache.shiro.web.filter.mgt.FilterChainManager;
+import org.apache.shiro.web.filter.mgt.FilterChainResolver;
+import org.apache.shiro.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// PathMatchingFilterChainResolver equivalent (ant patterns, first definition wins) but the chain definitions
+// are compiled in a path segment trie: literal segments are a map lookup, "*"/"?" segments a glob and "**"
+// a node looping on itself so a request is resolved walking its path once whatever the number of chains.
+// resolutions are cached per path.
+// note: empty segments are ignored so "/admin" also covers "/admin/" (ant matching would not)
+public class TrieFilterChainResolver implements FilterChainResolver {
+    private static final String NO_CHAIN = "";
+
+    private final FilterChainManager filterChainManager;
+    private final BoundedCache<String, String> resolved;
+    private volatile Node root;
+    private volatile String[] chains;
+
+    public TrieFilterChainResolver(final FilterChainManager filterChainManager, final int cacheSize) {
+        this.filterChainManager = filterChainManager;
+        this.resolved = new BoundedCache<>(cacheSize, 0, 16, SecurityMetrics.cache("filter-chains"));
+        compile();
+    }
+
+    public FilterChainManager getFilterChainManager() {
+        return filterChainManager;
+    }
+
+    // to call if chains are added to the manager after the creation of the resolver
+    public void compile() {
+        final Node trie = new Node(null);
+        final String[] names = filterChainManager.getChainNames().toArray(new String[0]); // definition order
+        for (int i = 0; i < names.length; i++) {
+            Node current = trie;
+            for (final String segment : segments(names[i])) {
+                current = current.child(segment);
+            }
+            current.chain = Math.min(current.chain, i);
+        }
+        chains = names;
+        root = trie;
+        resolved.clear();
+    }
+
+    @Override
+    public FilterChain getChain(final ServletRequest request, final ServletResponse response, final FilterChain originalChain) {
+        if (!filterChainManager.hasChains()) {
+            return null;
+        }
+        final String chain = resolve(WebUtils.getPathWithinApplication(HttpServletRequest.class.cast(request)));
+        return chain == null ? null : filterChainManager.proxy(originalChain, chain);
+    }
+
+    public String resolve(final String path) {
+        final String cached = resolved.get(path);
+        if (cached != null) {
+            return cached == NO_CHAIN ? null : cached;
+        }
+        final String chain = match(path);
+        resolved.put(path, chain == null ? NO_CHAIN : chain);
+        return chain;
+    }
+
+    private String match(final String path) {
+        final Node trie = root;
+        List<Node> states = new ArrayList<>(4);
+        enter(states, trie);
+        final int length = path.length();
+        int start = 0;
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                final String segment = path.substring(start, end);
+                final List<Node> next = new ArrayList<>(4);
+                for (final Node state : states) {
+                    if (state.doubleStar) { // "**" consumes the segment and stays active
+                        enter(next, state);
+                    }
+                    final Node literal = state.literals.get(segment);
+                    if (literal != null) {
+                        enter(next, literal);
+                    }
+                    for (final Node glob : state.globs) {
+                        if (glob.matches(segment)) {
+                            enter(next, glob);
+                        }
+                    }
+                }
+                if (next.isEmpty()) {
+                    return null;
+                }
+                states = next;
+            }
+            start = end + 1;
+        }
+        int best = Integer.MAX_VALUE;
+        for (final Node state : states) {
+            best = Math.min(best, state.chain);
+        }
+        return best == Integer.MAX_VALUE ? null : chains[best];
+    }
+
+    // a "**" child can match zero segments so it is active as soon as its parent is
+    private static void enter(final List<Node> states, final Node node) {
+        for (final Node existing : states) {
+            if (existing == node) {
+                return;
+            }
+        }
+        states.add(node);
+        if (node.doubleStarChild != null) {
+            enter(states, node.doubleStarChild);
+        }
+    }
+
+    private static List<String> segments(final String pattern) {
+        final List<String> segments = new ArrayList<>();
+        for (final String segment : pattern.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    private static final class Node {
+        private final String glob; // null for literal nodes
+        private final boolean doubleStar;
+        private final Map<String, Node> literals = new HashMap<>();
+        private final List<Node> globs = new ArrayList<>();
+        private Node doubleStarChild;
+        private int chain = Integer.MAX_VALUE; // index of the first chain definition ending here
+
+        private Node(final String glob) {
+            this.glob = glob;
+            this.doubleStar = "**".equals(glob);
+        }
+
+        private Node child(final String segment) {
+            if ("**".equals(segment)) {
+                if (doubleStarChild == null) {
+                    doubleStarChild = new Node(segment);
+                }
+                return doubleStarChild;
+            }
+            if (segment.indexOf('*') < 0 && segment.indexOf('?') < 0) {
+                return literals.computeIfAbsent(segment, s -> new Node(null));
+            }
+            for (final Node existing : globs) {
+                if (existing.glob.equals(segment)) {
+                    return existing;
+                }
+            }
+            final Node node = new Node(segment);
+            globs.add(node);
+            return node;
+        }
+
+        private boolean matches(final String segment) {
+            return matches(glob, 0, segment, 0);
+        }
+
+        // '*' is any sequence and '?' any character, as AntPathMatcher in a segment
+        private static boolean matches(final String pattern, final int patternIndex, final String value, final int valueIndex) {
+            int p = patternIndex;
+            int v = valueIndex;
+            while (p < pattern.length()) {
+                final char c = pattern.charAt(p);
+                if (c == '*') {
+                    while (p < pattern.length() && pattern.charAt(p) == '*') {
+                        p++;
+                    }
+                    if (p == pattern.length()) {
+                        return true;
+                    }
+                    for (int i = v; i <= value.length(); i++) {
+                        if (matches(pattern, p, value, i)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+                if (v >= value.length() || (c != '?' && c != value.charAt(v))) {
+                    return false;
+                }
+                p++;
+                v++;
+            }
+            return v == value.length();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.rmannibucau.shiro.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+// written by SecuredIndexProcessor, one line per secured element:
+// - <binary class name> when the class is annotated
+// - <binary class name>#<method>(<erased parameter types>) when a method is annotated
+// it is only a hint (incremental builds can make it partial) so it is never used to skip a security check
+public final class SecuredIndex {
+    public static final String LOCATION = "META-INF/shiro-cdi/secured.index";
+
+    // class name -> annotated method signatures, null value means the whole class is annotated
+    private final Map<String, Collection<String>> entries;
+
+    private SecuredIndex(final Map<String, Collection<String>> entries) {
+        this.entries = entries;
+    }
+
+    public static SecuredIndex load(final ClassLoader loader) {
+        final Map<String, Collection<String>> entries = new LinkedHashMap<>();
+        try {
+            final Enumeration<URL> urls = loader.getResources(LOCATION);
+            while (urls.hasMoreElements()) {
+                try (final InputStream stream = urls.nextElement().openStream()) {
+                    read(stream, entries);
+                }
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException("Can't read " + LOCATION, e);
+        }
+        return new SecuredIndex(entries);
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    // resolves the indexed methods, stale entries (class or method removed since) are ignored
+    public void forEachMethod(final ClassLoader loader, final BiConsumer<Class<?>, Method> consumer) {
+        entries.forEach((className, signatures) -> {
+            final Class<?> type;
+            try {
+                type = loader.loadClass(className);
+            } catch (final ClassNotFoundException | LinkageError e) {
+                return;
+            }
+            final Method[] methods;
+            try {
+                methods = type.getDeclaredMethods();
+            } catch (final LinkageError e) {
+                return;
+            }
+            for (final Method method : methods) {
+                if (method.isSynthetic() || method.isBridge() || Modifier.isStatic(method.getModifiers()) || Modifier.isPrivate(method.getModifiers())) {
+                    continue;
+                }
+                if (signatures == null || signatures.contains(signature(method))) {
+                    consumer.accept(type, method);
+                }
+            }
+        });
+    }
+
+    static String signature(final Method method) {
+        final StringBuilder builder = new StringBuilder(method.getName()).append('(');
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(parameterTypes[i].getCanonicalName());
+        }
+        return builder.append(')').toString();
+    }
+
+    static void read(final InputStream stream, final Map<String, Collection<String>> entries) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            final int sep = line.indexOf('#');
+            if (sep < 0) {
+                entries.put(line, null);
+                continue;
+            }
+            final String className = line.substring(0, sep);
+            if (entries.containsKey(className) && entries.get(className) == null) { // whole class already
+                continue;
+            }
+            entries.computeIfAbsent(className, k -> new ArrayList<>()).add(line.substring(sep + 1));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.rmannibucau.shiro.index;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+// writes SecuredIndex.LOCATION for the classes compiled with it on the classpath.
+// it runs in javac for any build having this jar, shiro can be missing there so names only, no runtime class
+@SupportedAnnotationTypes({
+        "org.apache.shiro.authz.annotation.RequiresRoles",
+        "org.apache.shiro.authz.annotation.RequiresPermissions",
+        "org.apache.shiro.authz.annotation.RequiresAuthentication",
+        "org.apache.shiro.authz.annotation.RequiresUser",
+        "org.apache.shiro.authz.annotation.RequiresGuest"
+})
+public class SecuredIndexProcessor extends AbstractProcessor {
+    private final Set<String> lines = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        for (final TypeElement annotation : annotations) {
+            for (final Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind().isClass() || element.getKind().isInterface()) {
+                    lines.add(processingEnv.getElementUtils().getBinaryName(TypeElement.class.cast(element)).toString());
+                } else if (element.getKind() == ElementKind.METHOD) {
+                    lines.add(signature(ExecutableElement.class.cast(element)));
+                }
+            }
+        }
+        if (roundEnv.processingOver() && !lines.isEmpty()) {
+            write();
+        }
+        return false; // let other processors see shiro annotations
+    }
+
+    private String signature(final ExecutableElement method) {
+        final TypeElement type = TypeElement.class.cast(method.getEnclosingElement());
+        final StringBuilder builder = new StringBuilder()
+                .append(processingEnv.getElementUtils().getBinaryName(type))
+                .append('#').append(method.getSimpleName()).append('(');
+        boolean first = true;
+        for (final VariableElement parameter : method.getParameters()) {
+            if (!first) {
+                builder.append(',');
+            }
+            first = false;
+            builder.append(processingEnv.getTypeUtils().erasure(parameter.asType()).toString());
+        }
+        return builder.append(')').toString();
+    }
+
+    private void write() {
+        try {
+            final FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SecuredIndex.LOCATION);
+            try (final Writer writer = new OutputStreamWriter(resource.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (final String line : lines) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+        } catch (final IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Can't write " + SecuredIndex.LOCATION + ": " + e.getMessage());
+        }
+    }
+}
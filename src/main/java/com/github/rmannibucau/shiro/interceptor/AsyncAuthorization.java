@@ -0,0 +1,85 @@
+package com.github.rmannibucau.shiro.interceptor;
+
+import com.github.rmannibucau.shiro.authz.AsyncAuthorizer;
+import com.github.rmannibucau.shiro.holder.SubjectHolder;
+import com.github.rmannibucau.shiro.holder.SubjectHolders;
+import org.apache.shiro.subject.Subject;
+
+import javax.interceptor.InvocationContext;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+// shiro-cdi.interceptors.async=true: methods returning a CompletionStage are invoked once authorized
+// instead of blocking the caller thread on the realms.
+// the invocation (next interceptors and the business method) always runs on the invocation executor,
+// only the subject is propagated: other contexts (request scope, transaction...) are not active there
+// unless the executor propagates them (a ManagedExecutorService named shiro-cdi.interceptors.async.executor for instance)
+public final class AsyncAuthorization {
+    private static final boolean ENABLED = Boolean.getBoolean("shiro-cdi.interceptors.async");
+
+    private static volatile AsyncAuthorizer authorizer;
+    private static volatile Executor executor;
+
+    private AsyncAuthorization() {
+        // no-op
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public static AsyncAuthorizer getAuthorizer() {
+        return authorizer;
+    }
+
+    public static void setAuthorizer(final AsyncAuthorizer asyncAuthorizer) {
+        authorizer = asyncAuthorizer;
+    }
+
+    public static Executor getExecutor() {
+        return executor;
+    }
+
+    public static void setExecutor(final Executor invocationExecutor) {
+        executor = invocationExecutor;
+    }
+
+    // requirement == null means all the requirements of the plan (fused mode)
+    static Object proceed(final InvocationContext ic, final AuthorizationPlan plan, final Requirement requirement) {
+        final AsyncAuthorizer current = authorizer;
+        final Executor invocationExecutor = executor;
+        if (current == null || invocationExecutor == null) {
+            throw new IllegalStateException("No AsyncAuthorizer, is ShiroExtension deployed?");
+        }
+        final CompletableFuture<Void> authorized;
+        final Subject subject;
+        try {
+            subject = SubjectHolders.currentOrCreate();
+            authorized = requirement == null ?
+                    plan.checkAllAsync(subject, current) : plan.checkAsync(requirement, subject, current);
+        } catch (final RuntimeException re) { // the caller expects a stage, not a synchronous failure
+            final CompletableFuture<Object> failed = new CompletableFuture<>();
+            failed.completeExceptionally(re);
+            return failed;
+        }
+        return authorized.thenComposeAsync(ignored -> invoke(ic, subject), invocationExecutor);
+    }
+
+    // the continuation runs on the invocation executor so rebind the caller subject there
+    private static CompletionStage<Object> invoke(final InvocationContext ic, final Subject subject) {
+        final SubjectHolder holder = SubjectHolders.get();
+        final Subject previous = holder.bind(subject);
+        try {
+            final CompletionStage<?> result = CompletionStage.class.cast(ic.proceed());
+            return result.thenApply(Object.class::cast);
+        } catch (final RuntimeException re) {
+            throw re;
+        } catch (final Exception e) {
+            throw new CompletionException(e);
+        } finally {
+            holder.restore(previous);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.github.rmannibucau.shiro.interceptor;
+
+import com.github.rmannibucau.shiro.authz.AsyncAuthorizer;
+import com.github.rmannibucau.shiro.holder.SubjectHolders;
+import com.github.rmannibucau.shiro.jfr.SecurityEvents;
+import com.github.rmannibucau.shiro.metrics.DecisionStats;
+import com.github.rmannibucau.shiro.metrics.SecurityMetrics;
+import org.apache.shiro.authz.AuthorizationException;
+import org.apache.shiro.subject.Subject;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// resolved once per method, then it is just a few field reads per invocation
+public final class AuthorizationPlan {
+    private static final Requirement[] REQUIREMENTS = Requirement.values();
+    // class level annotations are read from the bean class so a method inherited by several beans has one plan per bean class,
+    // interception subclasses (weld, owb, cglib...) share the plans of the bean class they extend
+    private static final ClassValue<ConcurrentMap<Method, AuthorizationPlan>> PLANS = new ClassValue<ConcurrentMap<Method, AuthorizationPlan>>() {
+        @Override
+        protected ConcurrentMap<Method, AuthorizationPlan> computeValue(final Class<?> type) {
+            final Class<?> beanClass = beanClass(type);
+            return beanClass == type ? new ConcurrentHashMap<>() : get(beanClass);
+        }
+    };
+    private static final SecurityEvents EVENTS = SecurityEvents.get();
+
+    private final Method method;
+    private final Check[] checks;
+    private final AsyncCheck[] asyncChecks;
+    private final boolean secured;
+    private final DecisionStats stats; // null when metrics are disabled
+
+    private AuthorizationPlan(final Method method, final Check[] checks, final AsyncCheck[] asyncChecks) {
+        this.method = method;
+        this.checks = checks;
+        this.asyncChecks = asyncChecks;
+
+        boolean hasCheck = false;
+        for (final Check check : checks) {
+            hasCheck = hasCheck || check != null;
+        }
+        this.secured = hasCheck;
+        this.stats = hasCheck ? SecurityMetrics.method(method) : null;
+    }
+
+    public static AuthorizationPlan of(final Method method, final Object target) {
+        final Class<?> type = target != null ? target.getClass() : method.getDeclaringClass();
+        final ConcurrentMap<Method, AuthorizationPlan> plans = PLANS.get(type);
+        final AuthorizationPlan plan = plans.get(method); // avoid computeIfAbsent locking on the hot path
+        if (plan != null) {
+            return plan;
+        }
+        return plans.computeIfAbsent(method, m -> compile(m, beanClass(type)));
+    }
+
+    // eager variant used at startup so first invocations don't pay the reflective lookups
+    public static AuthorizationPlan prepare(final Method method, final Class<?> type) {
+        return PLANS.get(type).computeIfAbsent(method, m -> compile(m, beanClass(type)));
+    }
+
+    static Class<?> beanClass(final Class<?> type) {
+        Class<?> current = type;
+        while ((current.isSynthetic() || current.getName().contains("$$"))
+                && current.getSuperclass() != null && current.getSuperclass() != Object.class) {
+            current = current.getSuperclass();
+        }
+        return current;
+    }
+
+    public static AuthorizationPlan compile(final Method method, final Class<?> type) {
+        return compile(method, type, AsyncAuthorization.isEnabled() && isAsync(method));
+    }
+
+    static AuthorizationPlan compile(final Method method, final Class<?> type, final boolean async) {
+        final Check[] checks = new Check[REQUIREMENTS.length];
+        final AsyncCheck[] asyncChecks = async ? new AsyncCheck[REQUIREMENTS.length] : null;
+        for (final Requirement requirement : REQUIREMENTS) {
+            final Annotation annotation = find(method, type, requirement.getType());
+            if (annotation != null) {
+                checks[requirement.ordinal()] = requirement.compile(annotation);
+                if (async) {
+                    asyncChecks[requirement.ordinal()] = requirement.compileAsync(annotation);
+                }
+            }
+        }
+        return new AuthorizationPlan(method, checks, asyncChecks);
+    }
+
+    public boolean requires(final Requirement requirement) {
+        return checks[requirement.ordinal()] != null;
+    }
+
+    public void check(final Requirement requirement) {
+        final Check check = checks[requirement.ordinal()];
+        if (check != null) {
+            run(requirement.ordinal(), check, SubjectHolders.currentOrCreate());
+        }
+    }
+
+    // fused mode: a single subject lookup for all the requirements of the method
+    public void checkAll() {
+        if (!secured) {
+            return;
+        }
+        final Subject subject = SubjectHolders.currentOrCreate();
+        for (int i = 0; i < checks.length; i++) {
+            if (checks[i] != null) {
+                run(i, checks[i], subject);
+            }
+        }
+    }
+
+    public boolean isSecured() {
+        return secured;
+    }
+
+    // the invocation is deferred until the decision is known instead of blocking the caller
+    public boolean isAsync() {
+        return secured && asyncChecks != null;
+    }
+
+    CompletableFuture<Void> checkAsync(final Requirement requirement, final Subject subject, final AsyncAuthorizer authorizer) {
+        final AsyncCheck check = asyncChecks[requirement.ordinal()];
+        if (check == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return runAsync(requirement.ordinal(), check, subject, authorizer);
+    }
+
+    // sequential to keep the sync ordering (and first failure) of the requirements
+    CompletableFuture<Void> checkAllAsync(final Subject subject, final AsyncAuthorizer authorizer) {
+        CompletableFuture<Void> result = CompletableFuture.completedFuture(null);
+        for (int i = 0; i < asyncChecks.length; i++) {
+            final AsyncCheck check = asyncChecks[i];
+            if (check != null) {
+                final int index = i;
+                result = result.thenCompose(ignored -> runAsync(index, check, subject, authorizer));
+            }
+        }
+        return result;
+    }
+
+    private void run(final int index, final Check check, final Subject subject) {
+        final Object event = EVENTS.beginAuthorization();
+        if (!SecurityMetrics.ENABLED && event == null) {
+            run(check, subject);
+            return;
+        }
+        final long start = SecurityMetrics.ENABLED ? System.nanoTime() : 0;
+        boolean granted = false;
+        try {
+            run(check, subject);
+            granted = true;
+        } finally {
+            record(index, start, event, granted);
+        }
+    }
+
+    private void record(final int index, final long start, final Object event, final boolean granted) {
+        if (SecurityMetrics.ENABLED) {
+            final long duration = System.nanoTime() - start;
+            SecurityMetrics.get().requirement(REQUIREMENTS[index]).record(duration, granted);
+            if (stats != null) {
+                stats.record(duration, granted);
+            }
+        }
+        if (event != null) {
+            EVENTS.commitAuthorization(event, method, REQUIREMENTS[index], granted);
+        }
+    }
+
+    private void run(final Check check, final Subject subject) {
+        try {
+            check.check(subject);
+        } catch (final AuthorizationException ae) { // same as shiro AuthorizingAnnotationMethodInterceptor
+            if (ae.getCause() == null) {
+                ae.initCause(new AuthorizationException("Not authorized to invoke method: " + method));
+            }
+            throw ae;
+        }
+    }
+
+    private CompletableFuture<Void> runAsync(final int index, final AsyncCheck check, final Subject subject, final AsyncAuthorizer authorizer) {
+        final Object event = EVENTS.beginAuthorization();
+        final long start = SecurityMetrics.ENABLED ? System.nanoTime() : 0;
+        final CompletionStage<Void> stage;
+        try {
+            stage = check.check(subject, authorizer);
+        } catch (final RuntimeException re) {
+            record(index, start, event, false);
+            final CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(withInvocationCause(re));
+            return failed;
+        }
+        return stage.toCompletableFuture().handle((ignored, error) -> {
+            record(index, start, event, error == null);
+            if (error != null) {
+                final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                throw new CompletionException(withInvocationCause(cause));
+            }
+            return null;
+        });
+    }
+
+    private Throwable withInvocationCause(final Throwable error) {
+        if (AuthorizationException.class.isInstance(error) && error.getCause() == null) {
+            error.initCause(new AuthorizationException("Not authorized to invoke method: " + method));
+        }
+        return error;
+    }
+
+    private static boolean isAsync(final Method method) {
+        final Class<?> returnType = method.getReturnType();
+        return returnType == CompletionStage.class || returnType == CompletableFuture.class;
+    }
+
+    // shiro DefaultAnnotationResolver logic: method first then instance class
+    private static Annotation find(final Method method, final Class<?> type, final Class<? extends Annotation> annotation) {
+        final Annotation onMethod = method.getAnnotation(annotation);
+        if (onMethod != null) {
+            return onMethod;
+        }
+        return type.getAnnotation(annotation);
+    }
+
+    @FunctionalInterface
+    interface Check {
+        void check(Subject subject);
+    }
+
+    @FunctionalInterface
+    interface AsyncCheck {
+        CompletionStage<Void> check(Subject subject, AsyncAuthorizer authorizer);
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.rmannibucau.shiro.interceptor;
+
+import javax.annotation.Priority;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+import java.io.Serializable;
+
+// replaces the 5 ShiroInterceptorBridge when shiro-cdi.interceptors.fused=true
+@Interceptor
+@ShiroSecured
+@Priority(Interceptor.Priority.LIBRARY_BEFORE)
+public class FusedShiroInterceptor implements Serializable {
+    @AroundInvoke
+    public Object around(final InvocationContext ic) throws Exception {
+        final AuthorizationPlan plan = AuthorizationPlan.of(ic.getMethod(), ic.getTarget());
+        if (plan.isAsync()) {
+            return AsyncAuthorization.proceed(ic, plan, null);
+        }
+        plan.checkAll();
+        return ic.proceed();
+    }
+}
@@ -0,0 +1,183 @@
+package com.github.rmannibucau.shiro.interceptor;
+
+import org.apache.shiro.authz.UnauthenticatedException;
+import org.apache.shiro.authz.UnauthorizedException;
+import org.apache.shiro.authz.annotation.Logical;
+import org.apache.shiro.authz.annotation.RequiresAuthentication;
+import org.apache.shiro.authz.annotation.RequiresGuest;
+import org.apache.shiro.authz.annotation.RequiresPermissions;
+import org.apache.shiro.authz.annotation.RequiresRoles;
+import org.apache.shiro.authz.annotation.RequiresUser;
+import org.apache.shiro.subject.Subject;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+
+// same order and semantic as shiro AnnotationsAuthorizingMethodInterceptor/*AnnotationHandler
+// but annotation values are read once when compiling the check
+public enum Requirement {
+    ROLES(RequiresRoles.class) {
+        @Override
+        AuthorizationPlan.Check compile(final Annotation annotation) {
+            final RequiresRoles requiresRoles = RequiresRoles.class.cast(annotation);
+            final String[] roles = requiresRoles.value();
+            if (roles.length == 0) {
+                return subject -> {
+                };
+            }
+            if (roles.length == 1) {
+                final String role = roles[0];
+                return subject -> subject.checkRole(role);
+            }
+            if (Logical.AND == requiresRoles.logical()) {
+                final List<String> all = unmodifiableList(asList(roles));
+                return subject -> subject.checkRoles(all);
+            }
+            return subject -> {
+                for (final String role : roles) {
+                    if (subject.hasRole(role)) {
+                        return;
+                    }
+                }
+                subject.checkRole(roles[0]); // throws the right exception
+            };
+        }
+
+        @Override
+        AuthorizationPlan.AsyncCheck compileAsync(final Annotation annotation) {
+            final RequiresRoles requiresRoles = RequiresRoles.class.cast(annotation);
+            final String[] roles = requiresRoles.value();
+            if (roles.length == 0) {
+                return super.compileAsync(annotation);
+            }
+            final boolean all = roles.length == 1 || Logical.AND == requiresRoles.logical();
+            return (subject, authorizer) -> evaluate(subject, roles, all, "role", v -> authorizer.hasRole(subject, v));
+        }
+    },
+    PERMISSIONS(RequiresPermissions.class) {
+        @Override
+        AuthorizationPlan.Check compile(final Annotation annotation) {
+            final RequiresPermissions requiresPermissions = RequiresPermissions.class.cast(annotation);
+            final String[] permissions = requiresPermissions.value();
+            if (permissions.length == 0) {
+                return subject -> {
+                };
+            }
+            if (permissions.length == 1) {
+                final String permission = permissions[0];
+                return subject -> subject.checkPermission(permission);
+            }
+            if (Logical.AND == requiresPermissions.logical()) {
+                return subject -> subject.checkPermissions(permissions);
+            }
+            return subject -> {
+                for (final String permission : permissions) {
+                    if (subject.isPermitted(permission)) {
+                        return;
+                    }
+                }
+                subject.checkPermission(permissions[0]); // throws the right exception
+            };
+        }
+
+        @Override
+        AuthorizationPlan.AsyncCheck compileAsync(final Annotation annotation) {
+            final RequiresPermissions requiresPermissions = RequiresPermissions.class.cast(annotation);
+            final String[] permissions = requiresPermissions.value();
+            if (permissions.length == 0) {
+                return super.compileAsync(annotation);
+            }
+            final boolean all = permissions.length == 1 || Logical.AND == requiresPermissions.logical();
+            return (subject, authorizer) -> evaluate(subject, permissions, all, "permission", v -> authorizer.isPermitted(subject, v));
+        }
+    },
+    AUTHENTICATION(RequiresAuthentication.class) {
+        @Override
+        AuthorizationPlan.Check compile(final Annotation annotation) {
+            return subject -> {
+                if (!subject.isAuthenticated()) {
+                    throw new UnauthenticatedException("The current Subject is not authenticated.  Access denied.");
+                }
+            };
+        }
+    },
+    USER(RequiresUser.class) {
+        @Override
+        AuthorizationPlan.Check compile(final Annotation annotation) {
+            return subject -> {
+                if (subject.getPrincipal() == null) {
+                    throw new UnauthenticatedException("Attempting to perform a user-only operation.  The current Subject is not a user " +
+                            "(they haven't been authenticated or remembered from a previous login).  Access denied.");
+                }
+            };
+        }
+    },
+    GUEST(RequiresGuest.class) {
+        @Override
+        AuthorizationPlan.Check compile(final Annotation annotation) {
+            return subject -> {
+                if (subject.getPrincipal() != null) {
+                    throw new UnauthenticatedException("Attempting to perform a guest-only operation.  The current Subject is not a guest " +
+                            "(they have been authenticated or remembered from a previous login).  Access denied.");
+                }
+            };
+        }
+    };
+
+    private static final CompletionStage<Void> COMPLETED = CompletableFuture.completedFuture(null);
+
+    private final Class<? extends Annotation> type;
+
+    Requirement(final Class<? extends Annotation> type) {
+        this.type = type;
+    }
+
+    public Class<? extends Annotation> getType() {
+        return type;
+    }
+
+    abstract AuthorizationPlan.Check compile(Annotation annotation);
+
+    // no I/O for this requirement so just run it inline
+    AuthorizationPlan.AsyncCheck compileAsync(final Annotation annotation) {
+        final AuthorizationPlan.Check check = compile(annotation);
+        return (subject, authorizer) -> {
+            check.check(subject);
+            return COMPLETED;
+        };
+    }
+
+    // decisions are requested concurrently, messages are the ModularRealmAuthorizer ones
+    private static CompletionStage<Void> evaluate(final Subject subject, final String[] values, final boolean all, final String type,
+                                                  final Function<String, CompletionStage<Boolean>> evaluator) {
+        if (subject.getPrincipals() == null || subject.getPrincipals().isEmpty()) { // DelegatingSubject#assertAuthzCheckPossible
+            throw new UnauthenticatedException("This subject is anonymous - it does not have any identifying principals and " +
+                    "authorization operations require an identity to check against.");
+        }
+        final CompletableFuture<?>[] decisions = new CompletableFuture<?>[values.length];
+        for (int i = 0; i < values.length; i++) {
+            decisions[i] = evaluator.apply(values[i]).toCompletableFuture();
+        }
+        return CompletableFuture.allOf(decisions).thenApply(ignored -> {
+            for (int i = 0; i < values.length; i++) {
+                final boolean granted = Boolean.TRUE.equals(decisions[i].join());
+                if (all && !granted) {
+                    throw new UnauthorizedException("Subject does not have " + type + " [" + values[i] + "]");
+                }
+                if (!all && granted) {
+                    return null;
+                }
+            }
+            if (!all) {
+                throw new UnauthorizedException("Subject does not have " + type + " [" + values[0] + "]");
+            }
+            return null;
+        });
+    }
+}
@@ -1,45 +1,32 @@
 package com.github.rmannibucau.shiro.interceptor;
 
-import org.apache.shiro.aop.MethodInterceptorSupport;
-import org.apache.shiro.aop.MethodInvocation;
 import org.apache.shiro.authz.annotation.RequiresAuthentication;
 import org.apache.shiro.authz.annotation.RequiresGuest;
 import org.apache.shiro.authz.annotation.RequiresPermissions;
 import org.apache.shiro.authz.annotation.RequiresRoles;
 import org.apache.shiro.authz.annotation.RequiresUser;
-import org.apache.shiro.authz.aop.AuthenticatedAnnotationMethodInterceptor;
-import org.apache.shiro.authz.aop.GuestAnnotationMethodInterceptor;
-import org.apache.shiro.authz.aop.PermissionAnnotationMethodInterceptor;
-import org.apache.shiro.authz.aop.RoleAnnotationMethodInterceptor;
-import org.apache.shiro.authz.aop.UserAnnotationMethodInterceptor;
 
 import javax.annotation.Priority;
 import javax.interceptor.AroundInvoke;
 import javax.interceptor.Interceptor;
 import javax.interceptor.InvocationContext;
 import java.io.Serializable;
-import java.lang.reflect.Method;
 
 public abstract class ShiroInterceptorBridge implements Serializable {
-    private final MethodInterceptorSupport delegate;
+    private final Requirement requirement;
 
-    protected ShiroInterceptorBridge(final MethodInterceptorSupport delegate) {
-        this.delegate = delegate;
+    protected ShiroInterceptorBridge(final Requirement requirement) {
+        this.requirement = requirement;
     }
 
     @AroundInvoke
     public Object around(final InvocationContext ic) throws Exception {
-        try {
-            return delegate.invoke(new MethodInvocationContext(ic));
-        } catch (final Throwable throwable) {
-            if (Exception.class.isInstance(throwable)) {
-                throw Exception.class.cast(throwable);
-            }
-            if (Error.class.isInstance(throwable)) {
-                throw Error.class.cast(throwable);
-            }
-            throw new IllegalStateException(throwable);
+        final AuthorizationPlan plan = AuthorizationPlan.of(ic.getMethod(), ic.getTarget());
+        if (plan.isAsync()) {
+            return AsyncAuthorization.proceed(ic, plan, requirement);
         }
+        plan.check(requirement);
+        return ic.proceed();
     }
 
     @Interceptor
@@ -47,7 +34,7 @@ public abstract class ShiroInterceptorBridge implements Serializable {
     @Priority(Interceptor.Priority.LIBRARY_BEFORE)
     public static class RequiresRolesInterceptor extends ShiroInterceptorBridge {
         public RequiresRolesInterceptor() {
-            super(new RoleAnnotationMethodInterceptor());
+            super(Requirement.ROLES);
         }
     }
 
@@ -56,7 +43,7 @@ public abstract class ShiroInterceptorBridge implements Serializable {
     @Priority(Interceptor.Priority.LIBRARY_BEFORE)
     public static class RequirePermissionsInterceptor extends ShiroInterceptorBridge {
         public RequirePermissionsInterceptor() {
-            super(new PermissionAnnotationMethodInterceptor());
+            super(Requirement.PERMISSIONS);
         }
     }
 
@@ -65,7 +52,7 @@ public abstract class ShiroInterceptorBridge implements Serializable {
     @Priority(Interceptor.Priority.LIBRARY_BEFORE)
     public static class RequiresAuthenticationInterceptor extends ShiroInterceptorBridge {
         public RequiresAuthenticationInterceptor() {
-            super(new AuthenticatedAnnotationMethodInterceptor());
+            super(Requirement.AUTHENTICATION);
         }
     }
 
@@ -74,7 +61,7 @@ public abstract class ShiroInterceptorBridge implements Serializable {
     @Priority(Interceptor.Priority.LIBRARY_BEFORE)
     public static class RequiresUserInterceptor extends ShiroInterceptorBridge {
         public RequiresUserInterceptor() {
-            super(new UserAnnotationMethodInterceptor());
+            super(Requirement.USER);
         }
     }
 
@@ -83,35 +70,7 @@ public abstract class ShiroInterceptorBridge implements Serializable {
     @Priority(Interceptor.Priority.LIBRARY_BEFORE)
     public static class RequiresGuestInterceptor extends ShiroInterceptorBridge {
         public RequiresGuestInterceptor() {
-            super(new GuestAnnotationMethodInterceptor());
-        }
-    }
-
-    private static class MethodInvocationContext implements MethodInvocation {
-        private final InvocationContext ic;
-
-        private MethodInvocationContext(final InvocationContext ic) {
-            this.ic = ic;
-        }
-
-        @Override
-        public Object proceed() throws Throwable {
-            return ic.proceed();
-        }
-
-        @Override
-        public Method getMethod() {
-            return ic.getMethod();
-        }
-
-        @Override
-        public Object[] getArguments() {
-            return ic.getParameters();
-        }
-
-        @Override
-        public Object getThis() {
-            return ic.getTarget();
+            super(Requirement.GUEST);
         }
     }
 }
@@ -0,0 +1,25 @@
+package com.github.rmannibucau.shiro.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import javax.enterprise.inject.Vetoed;
+
+@Name("com.github.rmannibucau.shiro.Authorization")
+@Label("Shiro Authorization Check")
+@Description("Evaluation of a Shiro annotation before a CDI method invocation.")
+@Category({"Shiro CDI"})
+@Vetoed
+class AuthorizationEvent extends Event {
+    @Label("Method")
+    String method;
+
+    @Label("Annotation")
+    String annotation;
+
+    @Label("Granted")
+    boolean granted;
+}
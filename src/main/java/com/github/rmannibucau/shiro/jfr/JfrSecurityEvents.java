@@ -0,0 +1,147 @@
+package com.github.rmannibucau.shiro.jfr;
+
+import com.github.rmannibucau.shiro.interceptor.Requirement;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+
+import javax.enterprise.inject.Vetoed;
+import java.lang.reflect.Method;
+
+// events are only allocated when their type is enabled in a recording, the enabled state is cached
+// and refreshed when a recording changes so instrumented code only reads a volatile field otherwise
+@Vetoed
+public class JfrSecurityEvents extends SecurityEvents {
+    private final EventType authorizationType = EventType.getEventType(AuthorizationEvent.class);
+    private final EventType subjectType = EventType.getEventType(SubjectEvent.class);
+    private final EventType realmType = EventType.getEventType(RealmEvent.class);
+    private final EventType propagationType = EventType.getEventType(SubjectPropagationEvent.class);
+
+    private volatile boolean authorizationEnabled;
+    private volatile boolean subjectEnabled;
+    private volatile boolean realmEnabled;
+    private volatile boolean propagationEnabled;
+
+    public JfrSecurityEvents() {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recordingStateChanged(final Recording recording) {
+                refresh();
+            }
+        });
+        refresh();
+    }
+
+    private void refresh() {
+        authorizationEnabled = authorizationType.isEnabled();
+        subjectEnabled = subjectType.isEnabled();
+        realmEnabled = realmType.isEnabled();
+        propagationEnabled = propagationType.isEnabled();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public Object beginAuthorization() {
+        if (!authorizationEnabled) {
+            return null;
+        }
+        final AuthorizationEvent event = new AuthorizationEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitAuthorization(final Object event, final Method method, final Requirement requirement, final boolean granted) {
+        final AuthorizationEvent authorization = AuthorizationEvent.class.cast(event);
+        authorization.end();
+        if (authorization.shouldCommit()) {
+            authorization.method = method.getDeclaringClass().getName() + "#" + method.getName();
+            authorization.annotation = requirement.getType().getName();
+            authorization.granted = granted;
+            authorization.commit();
+        }
+    }
+
+    @Override
+    public Object beginSubject() {
+        if (!subjectEnabled) {
+            return null;
+        }
+        final SubjectEvent event = new SubjectEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitSubject(final Object event, final String phase, final String holder, final boolean success) {
+        final SubjectEvent subject = SubjectEvent.class.cast(event);
+        subject.end();
+        if (subject.shouldCommit()) {
+            subject.phase = phase;
+            subject.holder = holder;
+            subject.success = success;
+            subject.commit();
+        }
+    }
+
+    @Override
+    public Object beginRealm() {
+        if (!realmEnabled) {
+            return null;
+        }
+        final RealmEvent event = new RealmEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitRealm(final Object event, final String realm, final String operation, final String target, final boolean success) {
+        final RealmEvent realmEvent = RealmEvent.class.cast(event);
+        realmEvent.end();
+        if (realmEvent.shouldCommit()) {
+            realmEvent.realm = realm;
+            realmEvent.operation = operation;
+            realmEvent.target = target;
+            realmEvent.success = success;
+            realmEvent.commit();
+        }
+    }
+
+    @Override
+    public Object beginPropagation() {
+        if (!propagationEnabled) {
+            return null;
+        }
+        final SubjectPropagationEvent event = new SubjectPropagationEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitPropagation(final Object event, final String mode, final Object principal) {
+        final SubjectPropagationEvent propagation = SubjectPropagationEvent.class.cast(event);
+        propagation.end();
+        if (propagation.shouldCommit()) {
+            propagation.mode = mode;
+            propagation.principal = principal == null ? null : String.valueOf(principal);
+            propagation.commit();
+        }
+    }
+}
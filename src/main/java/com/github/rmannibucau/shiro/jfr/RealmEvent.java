@@ -0,0 +1,28 @@
+package com.github.rmannibucau.shiro.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import javax.enterprise.inject.Vetoed;
+
+@Name("com.github.rmannibucau.shiro.Realm")
+@Label("Shiro Realm Call")
+@Description("Authentication or authorization call to a realm.")
+@Category({"Shiro CDI"})
+@Vetoed
+class RealmEvent extends Event {
+    @Label("Realm")
+    String realm;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Target")
+    String target;
+
+    @Label("Success")
+    boolean success;
+}
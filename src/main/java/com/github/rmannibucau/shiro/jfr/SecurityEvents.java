@@ -0,0 +1,71 @@
+package com.github.rmannibucau.shiro.jfr;
+
+import com.github.rmannibucau.shiro.interceptor.Requirement;
+import com.github.rmannibucau.shiro.loader.Load;
+
+import javax.enterprise.inject.Vetoed;
+import java.lang.reflect.Method;
+
+// flight recorder facade: jdk.jfr is only touched by JfrSecurityEvents which is loaded when available
+// (java 8u262+/11+) and not disabled with shiro-cdi.jfr=false. begin*() returns null when nothing is recorded
+// so instrumented code only does a null check.
+@Vetoed // not a bean, use get()
+public class SecurityEvents {
+    private static final SecurityEvents INSTANCE = newInstance();
+
+    protected SecurityEvents() {
+        // no-op
+    }
+
+    public static SecurityEvents get() {
+        return INSTANCE;
+    }
+
+    public boolean isAvailable() {
+        return false;
+    }
+
+    public Object beginAuthorization() {
+        return null;
+    }
+
+    public void commitAuthorization(final Object event, final Method method, final Requirement requirement, final boolean granted) {
+        // no-op
+    }
+
+    public Object beginSubject() {
+        return null;
+    }
+
+    public void commitSubject(final Object event, final String phase, final String holder, final boolean success) {
+        // no-op
+    }
+
+    public Object beginRealm() {
+        return null;
+    }
+
+    public void commitRealm(final Object event, final String realm, final String operation, final String target, final boolean success) {
+        // no-op
+    }
+
+    public Object beginPropagation() {
+        return null;
+    }
+
+    public void commitPropagation(final Object event, final String mode, final Object principal) {
+        // no-op
+    }
+
+    static SecurityEvents newInstance() {
+        if ("false".equalsIgnoreCase(System.getProperty("shiro-cdi.jfr")) || Load.load("jdk.jfr.Event", null) == null) {
+            return new SecurityEvents();
+        }
+        try {
+            return SecurityEvents.class.cast(Load.load("com.github.rmannibucau.shiro.jfr.JfrSecurityEvents", SecurityEvents.class)
+                    .getDeclaredConstructor().newInstance());
+        } catch (final ReflectiveOperationException | LinkageError e) {
+            return new SecurityEvents();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.rmannibucau.shiro.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import javax.enterprise.inject.Vetoed;
+
+@Name("com.github.rmannibucau.shiro.Subject")
+@Label("Shiro Subject")
+@Description("Subject creation or binding for an incoming request.")
+@Category({"Shiro CDI"})
+@Vetoed
+class SubjectEvent extends Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Holder")
+    String holder;
+
+    @Label("Success")
+    boolean success;
+}
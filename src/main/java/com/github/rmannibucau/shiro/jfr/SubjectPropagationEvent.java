@@ -0,0 +1,22 @@
+package com.github.rmannibucau.shiro.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import javax.enterprise.inject.Vetoed;
+
+@Name("com.github.rmannibucau.shiro.SubjectPropagation")
+@Label("Shiro Subject Propagation")
+@Description("Asynchronous task running with the subject of the request which started it.")
+@Category({"Shiro CDI"})
+@Vetoed
+class SubjectPropagationEvent extends Event {
+    @Label("Mode")
+    String mode;
+
+    @Label("Principal")
+    String principal;
+}
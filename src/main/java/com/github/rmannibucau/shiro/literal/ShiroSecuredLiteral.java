@@ -0,0 +1,8 @@
+package com.github.rmannibucau.shiro.literal;
+
+import com.github.rmannibucau.shiro.interceptor.ShiroSecured;
+
+import javax.enterprise.util.AnnotationLiteral;
+
+public class ShiroSecuredLiteral extends AnnotationLiteral<ShiroSecured> implements ShiroSecured {
+}
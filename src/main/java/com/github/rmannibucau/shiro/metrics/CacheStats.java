@@ -0,0 +1,35 @@
+package com.github.rmannibucau.shiro.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class CacheStats {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public void hit() {
+        hits.increment();
+    }
+
+    public void miss() {
+        misses.increment();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRatio() {
+        final long h = getHits();
+        final long total = h + getMisses();
+        return total == 0 ? 0 : h / (double) total;
+    }
+
+    public void reset() {
+        hits.reset();
+        misses.reset();
+    }
+}
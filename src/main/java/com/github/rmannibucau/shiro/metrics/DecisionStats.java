@@ -0,0 +1,32 @@
+package com.github.rmannibucau.shiro.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class DecisionStats {
+    private final LongAdder granted = new LongAdder();
+    private final LongAdder denied = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public void record(final long durationNanos, final boolean success) {
+        (success ? granted : denied).increment();
+        latency.record(durationNanos);
+    }
+
+    public long getGranted() {
+        return granted.sum();
+    }
+
+    public long getDenied() {
+        return denied.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public void reset() {
+        granted.reset();
+        denied.reset();
+        latency.reset();
+    }
+}
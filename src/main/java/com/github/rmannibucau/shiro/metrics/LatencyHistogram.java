@@ -0,0 +1,91 @@
+package com.github.rmannibucau.shiro.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// HdrHistogram like log-linear buckets: exact under 32, then 16 sub-buckets per power of 2 (~6% precision),
+// recording is a few bit operations and a single atomic increment, no lock
+public class LatencyHistogram {
+    private static final int LINEAR = 32;
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = LINEAR + (63 - 5) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(final long value) {
+        final long v = value < 0 ? 0 : value;
+        counts.incrementAndGet(index(v));
+        total.add(v);
+        max.accumulate(v);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        final long count = getCount();
+        return count == 0 ? 0 : total.sum() / (double) count;
+    }
+
+    // highest value equivalent to the bucket holding the requested percentile (0-100)
+    public long getValueAtPercentile(final double percentile) {
+        final long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        final long target = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100. * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(highestEquivalentValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        max.reset();
+    }
+
+    static int index(final long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value); // >= 5
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR + (exponent - 5) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestEquivalentValue(final int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        final int exponent = (index - LINEAR) / SUB_BUCKETS + 5;
+        final long subBucket = (index - LINEAR) % SUB_BUCKETS;
+        final int shift = exponent - SUB_BUCKET_BITS;
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
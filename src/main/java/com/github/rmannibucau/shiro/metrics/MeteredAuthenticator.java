@@ -0,0 +1,51 @@
+package com.github.rmannibucau.shiro.metrics;
+
+import org.apache.shiro.authc.AuthenticationException;
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.Authenticator;
+import org.apache.shiro.authc.LogoutAware;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.util.Destroyable;
+
+// installed by SecurityManagerConfigurer when shiro-cdi.metrics=true
+public class MeteredAuthenticator implements Authenticator, LogoutAware, Destroyable {
+    private final Authenticator delegate;
+    private final DecisionStats stats;
+
+    public MeteredAuthenticator(final Authenticator delegate, final DecisionStats stats) {
+        this.delegate = delegate;
+        this.stats = stats;
+    }
+
+    public Authenticator getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public AuthenticationInfo authenticate(final AuthenticationToken token) throws AuthenticationException {
+        final long start = System.nanoTime();
+        boolean success = false;
+        try {
+            final AuthenticationInfo info = delegate.authenticate(token);
+            success = true;
+            return info;
+        } finally {
+            stats.record(System.nanoTime() - start, success);
+        }
+    }
+
+    @Override
+    public void onLogout(final PrincipalCollection principals) {
+        if (LogoutAware.class.isInstance(delegate)) {
+            LogoutAware.class.cast(delegate).onLogout(principals);
+        }
+    }
+
+    @Override // the security manager only destroys its direct authenticator
+    public void destroy() throws Exception {
+        if (Destroyable.class.isInstance(delegate)) {
+            Destroyable.class.cast(delegate).destroy();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.github.rmannibucau.shiro.metrics;
+
+import com.github.rmannibucau.shiro.interceptor.Requirement;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// instrumented code tests ENABLED (static final so the JIT drops the branch) or a null stats reference
+// resolved once, recording itself is lock free
+public final class SecurityMetrics implements SecurityMetricsMXBean {
+    public static final boolean ENABLED = Boolean.getBoolean("shiro-cdi.metrics");
+
+    private static final SecurityMetrics INSTANCE = new SecurityMetrics();
+    private static final String OBJECT_NAME = "com.github.rmannibucau.shiro:type=SecurityMetrics";
+
+    private final DecisionStats[] requirements = new DecisionStats[Requirement.values().length];
+    private final ConcurrentMap<String, DecisionStats> methods = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CacheStats> caches = new ConcurrentHashMap<>();
+    private final DecisionStats authentication = new DecisionStats();
+    private final DecisionStats subjectCreation = new DecisionStats();
+
+    private SecurityMetrics() {
+        for (int i = 0; i < requirements.length; i++) {
+            requirements[i] = new DecisionStats();
+        }
+    }
+
+    public static SecurityMetrics get() {
+        return INSTANCE;
+    }
+
+    // null when disabled so callers keep a single null check
+    public static DecisionStats method(final Method method) {
+        if (!ENABLED) {
+            return null;
+        }
+        return INSTANCE.methods.computeIfAbsent(key(method), k -> new DecisionStats());
+    }
+
+    // overloads get their own stats
+    static String key(final Method method) {
+        final StringBuilder builder = new StringBuilder(method.getDeclaringClass().getName()).append('#').append(method.getName()).append('(');
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(parameterTypes[i].getName());
+        }
+        return builder.append(')').toString();
+    }
+
+    public static CacheStats cache(final String name) {
+        if (!ENABLED) {
+            return null;
+        }
+        return INSTANCE.caches.computeIfAbsent(name, k -> new CacheStats());
+    }
+
+    public DecisionStats requirement(final Requirement requirement) {
+        return requirements[requirement.ordinal()];
+    }
+
+    public DecisionStats authentication() {
+        return authentication;
+    }
+
+    public DecisionStats subjectCreation() {
+        return subjectCreation;
+    }
+
+    public static void register() {
+        if (!ENABLED) {
+            return;
+        }
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(INSTANCE, name);
+            }
+        } catch (final MalformedObjectNameException | NotCompliantMBeanException | MBeanRegistrationException e) {
+            throw new IllegalStateException(e);
+        } catch (final InstanceAlreadyExistsException e) {
+            // concurrent registration, fine
+        }
+    }
+
+    public static void unregister() {
+        if (!ENABLED) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (final InstanceNotFoundException e) {
+            // already done
+        } catch (final MalformedObjectNameException | MBeanRegistrationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    @Override
+    public Map<String, StatsSnapshot> getRequirements() {
+        final Map<String, StatsSnapshot> snapshot = new TreeMap<>();
+        for (final Requirement requirement : Requirement.values()) {
+            snapshot.put(requirement.getType().getSimpleName(), StatsSnapshot.of(requirements[requirement.ordinal()]));
+        }
+        return snapshot;
+    }
+
+    @Override
+    public Map<String, StatsSnapshot> getMethods() {
+        final Map<String, StatsSnapshot> snapshot = new TreeMap<>();
+        methods.forEach((k, v) -> snapshot.put(k, StatsSnapshot.of(v)));
+        return snapshot;
+    }
+
+    @Override
+    public StatsSnapshot getAuthentication() {
+        return StatsSnapshot.of(authentication);
+    }
+
+    @Override
+    public StatsSnapshot getSubjectCreation() {
+        return StatsSnapshot.of(subjectCreation);
+    }
+
+    @Override
+    public Map<String, Double> getCacheHitRatios() {
+        final Map<String, Double> snapshot = new TreeMap<>();
+        caches.forEach((k, v) -> snapshot.put(k, v.getHitRatio()));
+        return snapshot;
+    }
+
+    public Map<String, CacheStats> getCaches() {
+        return new TreeMap<>(caches);
+    }
+
+    @Override
+    public void reset() {
+        for (final DecisionStats stats : requirements) {
+            stats.reset();
+        }
+        methods.values().forEach(DecisionStats::reset);
+        caches.values().forEach(CacheStats::reset);
+        authentication.reset();
+        subjectCreation.reset();
+    }
+}
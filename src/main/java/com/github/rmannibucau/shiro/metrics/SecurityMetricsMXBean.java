@@ -0,0 +1,19 @@
+package com.github.rmannibucau.shiro.metrics;
+
+import java.util.Map;
+
+public interface SecurityMetricsMXBean {
+    boolean isEnabled();
+
+    Map<String, StatsSnapshot> getRequirements();
+
+    Map<String, StatsSnapshot> getMethods();
+
+    StatsSnapshot getAuthentication();
+
+    StatsSnapshot getSubjectCreation();
+
+    Map<String, Double> getCacheHitRatios();
+
+    void reset();
+}
@@ -0,0 +1,60 @@
+package com.github.rmannibucau.shiro.metrics;
+
+import java.beans.ConstructorProperties;
+
+// immutable view exposed through JMX (mapped to CompositeData) and the CDI bean
+public class StatsSnapshot {
+    private final long granted;
+    private final long denied;
+    private final double meanNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long maxNanos;
+
+    @ConstructorProperties({"granted", "denied", "meanNanos", "p50Nanos", "p99Nanos", "maxNanos"})
+    public StatsSnapshot(final long granted, final long denied, final double meanNanos,
+                         final long p50Nanos, final long p99Nanos, final long maxNanos) {
+        this.granted = granted;
+        this.denied = denied;
+        this.meanNanos = meanNanos;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.maxNanos = maxNanos;
+    }
+
+    static StatsSnapshot of(final DecisionStats stats) {
+        final LatencyHistogram latency = stats.getLatency();
+        return new StatsSnapshot(stats.getGranted(), stats.getDenied(), latency.getMean(),
+                latency.getValueAtPercentile(50), latency.getValueAtPercentile(99), latency.getMax());
+    }
+
+    public long getGranted() {
+        return granted;
+    }
+
+    public long getDenied() {
+        return denied;
+    }
+
+    public double getMeanNanos() {
+        return meanNanos;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "StatsSnapshot{granted=" + granted + ", denied=" + denied + ", mean=" + meanNanos +
+                "ns, p50=" + p50Nanos + "ns, p99=" + p99Nanos + "ns, max=" + maxNanos + "ns}";
+    }
+}
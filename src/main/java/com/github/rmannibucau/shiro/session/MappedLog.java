@@ -0,0 +1,270 @@
+package com.github.rmannibucau.shiro.session;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+// append only log in a memory mapped file, the in memory index only keeps id -> record offset.
+// record: [int body length][int crc32 of body][body], body: [byte type][long expires at][int id length][id][payload]
+// the length is written last so a record is only visible once complete, replay stops on the first invalid record.
+// compaction copies the live records in a new file which atomically replaces the log. expired records are live
+// until deleted: the session manager must still see them to expire them (listeners). expires at is informative.
+class MappedLog implements Closeable {
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final byte STRING_ID = 0;
+    private static final byte SERIALIZED_ID = 1;
+    private static final int RECORD_HEADER = 8;
+    private static final int BODY_HEADER = 1 + 8 + 4;
+
+    private final Path path;
+    private final int capacity;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private Map<Object, Integer> index = new HashMap<>();
+    private int position;
+    private long live;
+    private boolean closed;
+
+    MappedLog(final Path path, final int capacity) {
+        this.path = path;
+        this.capacity = capacity;
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            lockChannel = FileChannel.open(Paths.get(path.toString() + ".lock"), CREATE, WRITE);
+            FileLock acquired;
+            try {
+                acquired = lockChannel.tryLock();
+            } catch (final OverlappingFileLockException ofle) { // same jvm
+                acquired = null;
+            }
+            lock = acquired;
+            if (lock == null) {
+                lockChannel.close();
+                throw new IllegalStateException(path + " is already used by another process");
+            }
+            map();
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        replay();
+    }
+
+    synchronized byte[] read(final Object id) {
+        final Integer offset = index.get(id);
+        if (offset == null) {
+            return null;
+        }
+        final int bodyLength = buffer.getInt(offset);
+        final int idLength = buffer.getInt(offset + RECORD_HEADER + 1 + 8);
+        final int payloadOffset = offset + RECORD_HEADER + BODY_HEADER + idLength;
+        final byte[] payload = new byte[bodyLength - BODY_HEADER - idLength];
+        Buffer.class.cast(buffer).position(payloadOffset); // Buffer cast: java 8 signature even when built with a recent jdk
+        buffer.get(payload);
+        return payload;
+    }
+
+    synchronized void put(final Object id, final byte[] payload, final long expiresAt) {
+        final int offset = append(PUT, id, payload, expiresAt);
+        final Integer previous = index.put(id, offset); // after append(): a compaction can have moved or dropped it
+        live += recordSize(offset);
+        if (previous != null) {
+            live -= recordSize(previous);
+        }
+    }
+
+    synchronized void delete(final Object id) {
+        final Integer previous = index.remove(id);
+        if (previous == null) {
+            return;
+        }
+        live -= recordSize(previous);
+        append(DELETE, id, new byte[0], 0); // tombstone, dead as soon as written
+    }
+
+    synchronized Collection<Object> ids() {
+        return new ArrayList<>(index.keySet());
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    synchronized int usedBytes() {
+        return position;
+    }
+
+    synchronized long liveBytes() {
+        return live;
+    }
+
+    synchronized void compactIfNeeded() { // more garbage than live data and the file gets big
+        if (!closed && position - live > live && position > capacity / 2) {
+            compact();
+        }
+    }
+
+    synchronized void compact() {
+        final Path compacted = Paths.get(path.toString() + ".compact");
+        final Map<Object, Integer> newIndex = new HashMap<>(index.size());
+        int newPosition = 0;
+        try {
+            Files.deleteIfExists(compacted);
+            try (final FileChannel out = FileChannel.open(compacted, CREATE_NEW, READ, WRITE)) {
+                final MappedByteBuffer target = out.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+                for (final Map.Entry<Object, Integer> entry : index.entrySet()) {
+                    final int offset = entry.getValue();
+                    final int size = recordSize(offset);
+                    final ByteBuffer source = buffer.duplicate();
+                    Buffer.class.cast(source).position(offset).limit(offset + size);
+                    Buffer.class.cast(target).position(newPosition);
+                    target.put(source);
+                    newIndex.put(entry.getKey(), newPosition);
+                    newPosition += size;
+                }
+                target.force();
+            }
+            channel.close();
+            Files.move(compacted, path, REPLACE_EXISTING, ATOMIC_MOVE);
+            map();
+        } catch (final IOException e) {
+            throw new IllegalStateException("Can't compact " + path, e);
+        }
+        index = newIndex;
+        position = newPosition;
+        live = newPosition;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            buffer.force();
+            channel.close();
+        } finally {
+            lock.release();
+            lockChannel.close();
+        }
+    }
+
+    private int append(final byte type, final Object id, final byte[] payload, final long expiresAt) {
+        final byte[] idBytes = encodeId(id);
+        final int bodyLength = BODY_HEADER + idBytes.length + payload.length;
+        if (position + RECORD_HEADER + bodyLength > capacity) {
+            compact();
+            if (position + RECORD_HEADER + bodyLength > capacity) {
+                throw new IllegalStateException("Session log " + path + " is full (" + capacity + " bytes)");
+            }
+        }
+        final int offset = position;
+        Buffer.class.cast(buffer).position(offset + RECORD_HEADER);
+        buffer.put(type);
+        buffer.putLong(expiresAt);
+        buffer.putInt(idBytes.length);
+        buffer.put(idBytes);
+        buffer.put(payload);
+        buffer.putInt(offset + 4, crc(offset + RECORD_HEADER, bodyLength));
+        buffer.putInt(offset, bodyLength); // commits the record
+        position = offset + RECORD_HEADER + bodyLength;
+        return offset;
+    }
+
+    private void replay() {
+        int offset = 0;
+        while (offset + RECORD_HEADER + BODY_HEADER <= capacity) {
+            final int bodyLength = buffer.getInt(offset);
+            if (bodyLength < BODY_HEADER || offset + RECORD_HEADER + bodyLength > capacity
+                    || buffer.getInt(offset + 4) != crc(offset + RECORD_HEADER, bodyLength)) {
+                break; // end of the log or partially written record
+            }
+            final byte type = buffer.get(offset + RECORD_HEADER);
+            final int idLength = buffer.getInt(offset + RECORD_HEADER + 1 + 8);
+            final byte[] idBytes = new byte[idLength];
+            Buffer.class.cast(buffer).position(offset + RECORD_HEADER + BODY_HEADER);
+            buffer.get(idBytes);
+            final Object id = decodeId(idBytes);
+            if (type == PUT) {
+                index.put(id, offset);
+            } else {
+                index.remove(id);
+            }
+            offset += RECORD_HEADER + bodyLength;
+        }
+        position = offset;
+        live = 0;
+        for (final Integer record : index.values()) {
+            live += recordSize(record);
+        }
+    }
+
+    private void map() throws IOException {
+        channel = FileChannel.open(path, CREATE, READ, WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private int recordSize(final int offset) {
+        return RECORD_HEADER + buffer.getInt(offset);
+    }
+
+    private int crc(final int offset, final int length) {
+        final CRC32 crc = new CRC32();
+        final ByteBuffer body = buffer.duplicate();
+        Buffer.class.cast(body).position(offset).limit(offset + length);
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] encodeId(final Object id) {
+        final byte[] value;
+        final byte kind;
+        if (String.class.isInstance(id)) { // default shiro ids are uuid strings
+            value = String.class.cast(id).getBytes(StandardCharsets.UTF_8);
+            kind = STRING_ID;
+        } else {
+            value = SessionSerialization.serialize(id);
+            kind = SERIALIZED_ID;
+        }
+        final byte[] encoded = new byte[value.length + 1];
+        encoded[0] = kind;
+        System.arraycopy(value, 0, encoded, 1, value.length);
+        return encoded;
+    }
+
+    private static Object decodeId(final byte[] encoded) {
+        if (encoded[0] == STRING_ID) {
+            return new String(encoded, 1, encoded.length - 1, StandardCharsets.UTF_8);
+        }
+        final byte[] value = new byte[encoded.length - 1];
+        System.arraycopy(encoded, 1, value, 0, value.length);
+        return SessionSerialization.deserialize(value);
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.rmannibucau.shiro.session;
+
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.mgt.eis.AbstractSessionDAO;
+import org.apache.shiro.util.Destroyable;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.util.Collections.unmodifiableList;
+
+// sessions survive a restart: they are appended to a memory mapped log (see MappedLog) replayed at startup,
+// reads are served from the mapping so they stay close to an in memory store.
+// garbage is compacted in background (writes only compact when the log is full), destroy() releases the file.
+public class MappedSessionDAO extends AbstractSessionDAO implements Destroyable {
+    private static final Logger LOGGER = Logger.getLogger(MappedSessionDAO.class.getName());
+
+    private final MappedLog log;
+    private final ScheduledExecutorService compaction;
+
+    public MappedSessionDAO(final Path path, final int capacity) {
+        this(path, capacity, 60000);
+    }
+
+    public MappedSessionDAO(final Path path, final int capacity, final long compactionInterval) {
+        this.log = new MappedLog(path, capacity);
+        this.compaction = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "shiro-cdi-session-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compaction.scheduleWithFixedDelay(() -> {
+            try {
+                log.compactIfNeeded();
+            } catch (final RuntimeException re) { // retried next time, appends still compact when the log is full
+                LOGGER.log(Level.WARNING, "Can't compact " + path, re);
+            }
+        }, compactionInterval, compactionInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected Serializable doCreate(final Session session) {
+        final Serializable id = generateSessionId(session);
+        assignSessionId(session, id);
+        store(session);
+        return id;
+    }
+
+    @Override
+    protected Session doReadSession(final Serializable sessionId) {
+        final byte[] bytes = log.read(sessionId);
+        return bytes == null ? null : Session.class.cast(SessionSerialization.deserialize(bytes));
+    }
+
+    @Override
+    public void update(final Session session) {
+        store(session);
+    }
+
+    @Override
+    public void delete(final Session session) {
+        if (session == null || session.getId() == null) {
+            throw new NullPointerException("session id argument cannot be null.");
+        }
+        log.delete(session.getId());
+    }
+
+    @Override
+    public Collection<Session> getActiveSessions() {
+        final List<Session> sessions = new ArrayList<>();
+        for (final Object id : log.ids()) {
+            final byte[] bytes = log.read(id);
+            if (bytes != null) { // deleted meanwhile
+                sessions.add(Session.class.cast(SessionSerialization.deserialize(bytes)));
+            }
+        }
+        return unmodifiableList(sessions);
+    }
+
+    public int size() {
+        return log.size();
+    }
+
+    public void compact() {
+        log.compact();
+    }
+
+    @Override
+    public void destroy() {
+        compaction.shutdownNow();
+        try {
+            log.close();
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void store(final Session session) {
+        if (session.getId() == null) {
+            throw new NullPointerException("id argument cannot be null.");
+        }
+        log.put(session.getId(), SessionSerialization.serialize(session), SessionSerialization.expiresAt(session));
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.rmannibucau.shiro.session;
+
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.mgt.eis.AbstractSessionDAO;
+import org.apache.shiro.util.Destroyable;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static java.util.Collections.unmodifiableList;
+
+// sessions are serialized in direct ByteBuffer slabs so the heap only keeps a small id -> location index,
+// see SlabStore for the memory layout and the reclaiming logic. expired sessions are only reclaimed once the
+// session manager validated (and deleted) them so keep session validation enabled.
+// note: session attributes must be serializable (as for any distributed session store)
+public class OffHeapSessionDAO extends AbstractSessionDAO implements Destroyable {
+    private final SlabStore[] stripes;
+    private final int mask;
+
+    public OffHeapSessionDAO(final long maxSize, final int slabSize, final int stripeCount) {
+        int count = 1;
+        while (count < stripeCount) {
+            count <<= 1;
+        }
+        final int slabsPerStripe = (int) Math.max(2, maxSize / slabSize / count);
+        this.stripes = new SlabStore[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new SlabStore(slabSize, slabsPerStripe);
+        }
+        this.mask = count - 1;
+    }
+
+    @Override
+    protected Serializable doCreate(final Session session) {
+        final Serializable id = generateSessionId(session);
+        assignSessionId(session, id);
+        store(session);
+        return id;
+    }
+
+    @Override
+    protected Session doReadSession(final Serializable sessionId) {
+        final byte[] bytes = stripe(sessionId).read(sessionId);
+        return bytes == null ? null : Session.class.cast(SessionSerialization.deserialize(bytes));
+    }
+
+    @Override
+    public void update(final Session session) {
+        store(session);
+    }
+
+    @Override
+    public void delete(final Session session) {
+        if (session == null || session.getId() == null) {
+            throw new NullPointerException("session id argument cannot be null.");
+        }
+        stripe(session.getId()).remove(session.getId());
+    }
+
+    @Override
+    public Collection<Session> getActiveSessions() {
+        final List<Session> sessions = new ArrayList<>();
+        for (final SlabStore stripe : stripes) {
+            for (final byte[] bytes : stripe.values()) { // deserialize outside of the stripe lock
+                sessions.add(Session.class.cast(SessionSerialization.deserialize(bytes)));
+            }
+        }
+        return unmodifiableList(sessions);
+    }
+
+    public int size() {
+        int size = 0;
+        for (final SlabStore stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void destroy() {
+        for (final SlabStore stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    private void store(final Session session) {
+        if (session.getId() == null) {
+            throw new NullPointerException("id argument cannot be null.");
+        }
+        stripe(session.getId()).write(session.getId(), SessionSerialization.serialize(session));
+    }
+
+    private SlabStore stripe(final Object id) {
+        final int hash = id.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.rmannibucau.shiro.session;
+
+import org.apache.shiro.io.ClassResolvingObjectInputStream;
+import org.apache.shiro.io.SerializationException;
+import org.apache.shiro.session.Session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+// shared by the DAOs storing sessions outside of the heap
+final class SessionSerialization {
+    private SessionSerialization() {
+        // no-op
+    }
+
+    static long expiresAt(final Session session) {
+        if (session.getTimeout() < 0 || session.getLastAccessTime() == null) {
+            return Long.MAX_VALUE;
+        }
+        return session.getLastAccessTime().getTime() + session.getTimeout();
+    }
+
+    static byte[] serialize(final Object value) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        try (final ObjectOutputStream stream = new ObjectOutputStream(out)) {
+            stream.writeObject(value);
+        } catch (final IOException e) {
+            throw new SerializationException("Can't serialize " + value + ", are all session attributes serializable?", e);
+        }
+        return out.toByteArray();
+    }
+
+    static Object deserialize(final byte[] bytes) {
+        try (final ObjectInputStream stream = new ClassResolvingObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return stream.readObject();
+        } catch (final IOException | ClassNotFoundException e) {
+            throw new SerializationException("Can't deserialize session data", e);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.github.rmannibucau.shiro.session;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// append only slabs of direct memory, records are never updated in place:
+// - index value packs slab (12 bits) | offset (28 bits) | length (24 bits)
+// - each slab tracks its live bytes
+// - when a new slab is needed, slabs without live bytes are recycled in one go,
+//   then the sparsest slab is compacted into a reserved slab which takes its role
+// - expired records stay live until deleted: the session manager must see them to expire them (listeners)
+class SlabStore {
+    private static final int MAX_SLABS = 1 << 12;
+    private static final int MAX_OFFSET = 1 << 28;
+    private static final int MAX_LENGTH = 1 << 24;
+
+    private final int slabSize;
+    private final int maxSlabs;
+    private final Map<Object, Long> index = new HashMap<>();
+    private final List<Slab> slabs = new ArrayList<>();
+    private final ArrayDeque<Slab> free = new ArrayDeque<>();
+    private Slab active;
+    private Slab reserve;
+
+    SlabStore(final int slabSize, final int maxSlabs) {
+        if (slabSize <= 0 || slabSize > MAX_OFFSET) {
+            throw new IllegalArgumentException("slab size must be in ]0, " + MAX_OFFSET + "]");
+        }
+        this.slabSize = slabSize;
+        this.maxSlabs = Math.min(MAX_SLABS, Math.max(2, maxSlabs));
+    }
+
+    synchronized byte[] read(final Object id) {
+        final Long location = index.get(id);
+        if (location == null) {
+            return null;
+        }
+        final byte[] bytes = new byte[length(location)];
+        final ByteBuffer buffer = slabs.get(slab(location)).buffer;
+        Buffer.class.cast(buffer).position(offset(location)); // Buffer cast: java 8 signature even when built with a recent jdk
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    synchronized void write(final Object id, final byte[] bytes) {
+        if (bytes.length >= MAX_LENGTH || bytes.length > slabSize) {
+            throw new IllegalArgumentException("Record of " + bytes.length + " bytes doesn't fit a slab of " + slabSize + " bytes");
+        }
+        while (active == null || slabSize - active.used < bytes.length) {
+            active = nextSlab();
+        }
+        final int offset = active.used;
+        Buffer.class.cast(active.buffer).position(offset);
+        active.buffer.put(bytes);
+        active.used += bytes.length;
+        active.live += bytes.length;
+        final Long previous = index.put(id, location(active.id, offset, bytes.length));
+        if (previous != null) {
+            slabs.get(slab(previous)).live -= length(previous);
+        }
+    }
+
+    synchronized void remove(final Object id) {
+        final Long previous = index.remove(id);
+        if (previous != null) {
+            slabs.get(slab(previous)).live -= length(previous);
+        }
+    }
+
+    synchronized Collection<byte[]> values() {
+        final List<byte[]> values = new ArrayList<>(index.size());
+        for (final Object id : index.keySet()) {
+            values.add(read(id));
+        }
+        return values;
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    synchronized void clear() {
+        index.clear();
+        slabs.clear();
+        free.clear();
+        active = null;
+        reserve = null;
+    }
+
+    private Slab nextSlab() {
+        sweep();
+        final Slab recycled = free.poll();
+        if (recycled != null) {
+            return recycled;
+        }
+        if (slabs.size() < maxSlabs - 1) { // last one is kept for compaction
+            return allocate();
+        }
+        return compact();
+    }
+
+    private void sweep() {
+        for (final Slab slab : slabs) {
+            if (slab != active && slab != reserve && slab.used > 0 && slab.live == 0) {
+                recycle(slab);
+            }
+        }
+    }
+
+    private Slab compact() {
+        Slab sparsest = null;
+        for (final Slab slab : slabs) {
+            if (slab != active && slab != reserve && slab.used > 0 && slab.live < slab.used
+                    && (sparsest == null || slab.live < sparsest.live)) {
+                sparsest = slab;
+            }
+        }
+        if (sparsest == null) {
+            throw new IllegalStateException("Off-heap session store is full (" + maxSlabs + " slabs of " + slabSize + " bytes per stripe)");
+        }
+        final Slab target = reserve != null ? reserve : allocate();
+        for (final Map.Entry<Object, Long> entry : index.entrySet()) {
+            final long location = entry.getValue();
+            if (slab(location) != sparsest.id) {
+                continue;
+            }
+            final int length = length(location);
+            final ByteBuffer source = sparsest.buffer.duplicate();
+            Buffer.class.cast(source).position(offset(location)).limit(offset(location) + length);
+            Buffer.class.cast(target.buffer).position(target.used);
+            target.buffer.put(source);
+            entry.setValue(location(target.id, target.used, length));
+            target.used += length;
+            target.live += length;
+        }
+        sparsest.reset();
+        reserve = sparsest;
+        return target;
+    }
+
+    private void recycle(final Slab slab) {
+        slab.reset();
+        free.add(slab);
+    }
+
+    private Slab allocate() {
+        final Slab slab = new Slab(slabs.size(), ByteBuffer.allocateDirect(slabSize));
+        slabs.add(slab);
+        return slab;
+    }
+
+    private static long location(final int slab, final int offset, final int length) {
+        return ((long) slab << 52) | ((long) offset << 24) | length;
+    }
+
+    private static int slab(final long location) {
+        return (int) (location >>> 52);
+    }
+
+    private static int offset(final long location) {
+        return (int) ((location >>> 24) & (MAX_OFFSET - 1));
+    }
+
+    private static int length(final long location) {
+        return (int) (location & (MAX_LENGTH - 1));
+    }
+
+    private static class Slab {
+        private final int id;
+        private final ByteBuffer buffer;
+        private int used;
+        private int live;
+
+        private Slab(final int id, final ByteBuffer buffer) {
+            this.id = id;
+            this.buffer = buffer;
+        }
+
+        private void reset() {
+            used = 0;
+            live = 0;
+        }
+    }
+}
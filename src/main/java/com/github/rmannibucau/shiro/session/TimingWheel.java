@@ -0,0 +1,101 @@
+package com.github.rmannibucau.shiro.session;
+
+import java.util.function.Consumer;
+
+// hierarchical timing wheel: LEVELS wheels of SLOTS buckets, level n buckets spanning SLOTS^n ticks.
+// an entry only moves when the bucket it sits in comes due (cascading to a lower level or firing)
+// so advancing costs what expires and not what is scheduled.
+// not thread safe, the owner serializes schedule() and advance().
+final class TimingWheel<T> {
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long HORIZON = 1L << (BITS * LEVELS);
+
+    private final Entry<T>[] buckets = newBuckets(LEVELS * SLOTS); // heads of Entry linked lists
+    private long tick;
+    private int size;
+
+    TimingWheel(final long tick) {
+        this.tick = tick;
+    }
+
+    long getTick() {
+        return tick;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // past deadlines fire on next tick, too far ones are clamped (callers re-check the actual deadline)
+    void schedule(final T value, final long deadline) {
+        add(new Entry<>(value, Math.max(tick + 1, Math.min(deadline, tick + HORIZON - 1))));
+        size++;
+    }
+
+    void advance(final long to, final Consumer<T> expired) {
+        while (tick < to) {
+            tick++;
+            for (int level = LEVELS - 1; level > 0; level--) { // top down so an entry can drop several levels at once
+                if ((tick & ((1L << (BITS * level)) - 1)) == 0) {
+                    Entry<T> entry = take(level, tick >>> (BITS * level));
+                    while (entry != null) {
+                        final Entry<T> next = entry.next;
+                        add(entry);
+                        entry = next;
+                    }
+                }
+            }
+            Entry<T> entry = take(0, tick);
+            while (entry != null) {
+                final Entry<T> next = entry.next;
+                size--;
+                expired.accept(entry.value);
+                entry = next;
+            }
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = null;
+        }
+        size = 0;
+    }
+
+    // lowest level where deadline and tick share the upper digits, so the bucket is reached before wrapping
+    private void add(final Entry<T> entry) {
+        int level = 0;
+        while (level < LEVELS - 1 && (entry.deadline >>> (BITS * (level + 1))) != (tick >>> (BITS * (level + 1)))) {
+            level++;
+        }
+        final int index = level * SLOTS + (int) ((entry.deadline >>> (BITS * level)) & MASK);
+        entry.next = buckets[index];
+        buckets[index] = entry;
+    }
+
+    private Entry<T> take(final int level, final long digit) {
+        final int index = level * SLOTS + (int) (digit & MASK);
+        final Entry<T> head = buckets[index];
+        buckets[index] = null;
+        return head;
+    }
+
+    @SuppressWarnings("unchecked") // only holds Entry<T>, the array never escapes
+    private static <T> Entry<T>[] newBuckets(final int size) {
+        return (Entry<T>[]) new Entry<?>[size];
+    }
+
+    private static final class Entry<T> {
+        private final T value;
+        private final long deadline;
+        private Entry<T> next;
+
+        private Entry(final T value, final long deadline) {
+            this.value = value;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.github.rmannibucau.shiro.session;
+
+import org.apache.shiro.session.InvalidSessionException;
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.SessionListener;
+import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.session.mgt.DefaultSessionKey;
+import org.apache.shiro.session.mgt.DefaultSessionManager;
+import org.apache.shiro.session.mgt.SessionValidationScheduler;
+import org.apache.shiro.session.mgt.ValidatingSession;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// replaces the periodic validateSessions() scan: session ids sit in a timing wheel at their expiry time.
+// touches are not tracked, when an id comes due the stored session is re-read and either rescheduled
+// to its new expiry or handed to the session manager which expires it (listeners, deletion) as usual.
+// the wheel is fed by the session listener (onStart) and re-seeded from the DAO every session validation interval
+// (shiro periodic scan period) so sessions started by another node sharing the DAO are still expired.
+public class TimingWheelSessionValidationScheduler implements SessionValidationScheduler, SessionListener {
+    private static final Logger LOGGER = Logger.getLogger(TimingWheelSessionValidationScheduler.class.getName());
+
+    private final DefaultSessionManager sessionManager;
+    private final long tickDuration;
+    private final Queue<Pending> pending = new ConcurrentLinkedQueue<>();
+    private volatile ScheduledExecutorService executor;
+    private TimingWheel<Serializable> wheel; // only used by the executor thread
+    private Set<Serializable> scheduled; // ids in the wheel, same
+    private long origin;
+
+    public TimingWheelSessionValidationScheduler(final DefaultSessionManager sessionManager, final long tickDuration) {
+        this.sessionManager = sessionManager;
+        this.tickDuration = Math.max(1, tickDuration);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return executor != null;
+    }
+
+    @Override
+    public synchronized void enableSessionValidation() {
+        if (executor != null) {
+            return;
+        }
+        pending.clear();
+        origin = System.currentTimeMillis();
+        wheel = new TimingWheel<>(0);
+        scheduled = new HashSet<>();
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "shiro-cdi-session-validation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::seed, 0, Math.max(tickDuration, sessionManager.getSessionValidationInterval()), TimeUnit.MILLISECONDS);
+        executor.scheduleAtFixedRate(this::tick, tickDuration, tickDuration, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void disableSessionValidation() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        executor = null;
+        pending.clear();
+    }
+
+    @Override
+    public void onStart(final Session session) {
+        if (executor != null && session.getId() != null) {
+            pending.add(new Pending(session.getId(), SessionSerialization.expiresAt(session)));
+        }
+    }
+
+    @Override
+    public void onStop(final Session session) {
+        // no-op, ids of stopped sessions are dropped when they come due
+    }
+
+    @Override
+    public void onExpiration(final Session session) {
+        // no-op, same as onStop
+    }
+
+    // sessions existing before (persistent DAO), created while validation was disabled or by another node
+    private void seed() {
+        try {
+            final long now = System.currentTimeMillis();
+            for (final Session session : sessionManager.getSessionDAO().getActiveSessions()) {
+                schedule(session.getId(), SessionSerialization.expiresAt(session), now);
+            }
+        } catch (final RuntimeException re) {
+            LOGGER.log(Level.SEVERE, "Can't load active sessions, they will not be validated", re);
+        }
+    }
+
+    private void tick() {
+        final long now = System.currentTimeMillis();
+        Pending next;
+        while ((next = pending.poll()) != null) {
+            schedule(next.id, next.expiresAt, now);
+        }
+        wheel.advance((now - origin) / tickDuration, this::validate);
+    }
+
+    private void validate(final Serializable id) {
+        scheduled.remove(id);
+        final long now = System.currentTimeMillis();
+        try {
+            final Session session;
+            try {
+                session = sessionManager.getSessionDAO().readSession(id);
+            } catch (final UnknownSessionException use) {
+                return; // already stopped/deleted
+            }
+            if (session == null) {
+                return;
+            }
+            final long expiresAt = SessionSerialization.expiresAt(session);
+            final boolean valid = expiresAt > now // SimpleSession#isValid only reads the flags
+                    && (!ValidatingSession.class.isInstance(session) || ValidatingSession.class.cast(session).isValid());
+            if (valid) { // touched since it was scheduled
+                schedule(id, expiresAt, now);
+                return;
+            }
+            final Session current = sessionManager.getSession(new DefaultSessionKey(id)); // validates and expires it
+            if (current != null) {
+                schedule(id, SessionSerialization.expiresAt(current), now);
+            }
+        } catch (final InvalidSessionException ise) {
+            // expected: the manager expired (or found stopped) the session and notified the listeners
+        } catch (final RuntimeException re) { // retry later, never kill the scheduler
+            LOGGER.log(Level.WARNING, "Can't validate session " + id, re);
+            schedule(id, now + sessionManager.getSessionValidationInterval(), now);
+        }
+    }
+
+    private void schedule(final Serializable id, final long expiresAt, final long now) {
+        if (!scheduled.add(id)) { // re-read when it comes due anyway
+            return;
+        }
+        final long at = expiresAt == Long.MAX_VALUE ? now + sessionManager.getSessionValidationInterval() : expiresAt; // timeout can change
+        wheel.schedule(id, (at - origin + tickDuration - 1) / tickDuration);
+    }
+
+    private static final class Pending {
+        private final Serializable id;
+        private final long expiresAt;
+
+        private Pending(final Serializable id, final long expiresAt) {
+            this.id = id;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.rmannibucau.shiro.setup;
+
+import javax.servlet.ServletException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+// shiro-cdi.security-manager.lazy=true: the security manager is configured by a background thread,
+// only what needs it (secured requests, SecurityManager injections) waits for the end of the initialization
+final class LazyInitialization {
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+    private final Thread thread;
+
+    LazyInitialization(final Task task) {
+        thread = new Thread(() -> {
+            try {
+                task.run();
+                future.complete(null);
+            } catch (final Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+        }, "shiro-cdi-security-manager-init");
+        thread.setContextClassLoader(Thread.currentThread().getContextClassLoader());
+        thread.setDaemon(true);
+    }
+
+    LazyInitialization start() {
+        thread.start();
+        return this;
+    }
+
+    CompletableFuture<Void> getFuture() {
+        return future;
+    }
+
+    Thread getThread() {
+        return thread;
+    }
+
+    void await() throws ServletException {
+        try {
+            future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException("Interrupted while waiting for the security manager", e);
+        } catch (final ExecutionException e) {
+            throw new ServletException("Security manager initialization failed", e.getCause());
+        }
+    }
+
+    @FunctionalInterface
+    interface Task {
+        void run() throws Exception;
+    }
+}
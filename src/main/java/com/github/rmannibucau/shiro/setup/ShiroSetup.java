@@ -1,19 +1,39 @@
 package com.github.rmannibucau.shiro.setup;
 
+import com.github.rmannibucau.shiro.authz.AuthorizationMemo;
+import com.github.rmannibucau.shiro.authz.RequestCachingAuthorizer;
 import com.github.rmannibucau.shiro.configurer.SecurityManagerConfigurer;
+import com.github.rmannibucau.shiro.configurer.ShiroConfiguration;
 import com.github.rmannibucau.shiro.extension.ShiroExtension;
+import com.github.rmannibucau.shiro.holder.SubjectHolder;
+import com.github.rmannibucau.shiro.holder.SubjectHolders;
+import com.github.rmannibucau.shiro.holder.ThreadContextSubjectHolder;
 import com.github.rmannibucau.shiro.http.AsyncContextWrapper;
+import com.github.rmannibucau.shiro.http.BearerTokenFilter;
+import com.github.rmannibucau.shiro.http.BypassMatcher;
+import com.github.rmannibucau.shiro.http.TrieFilterChainResolver;
+import com.github.rmannibucau.shiro.jfr.SecurityEvents;
+import com.github.rmannibucau.shiro.metrics.SecurityMetrics;
 import org.apache.shiro.env.Environment;
+import org.apache.shiro.mgt.AuthorizingSecurityManager;
+import org.apache.shiro.mgt.RealmSecurityManager;
 import org.apache.shiro.mgt.SecurityManager;
+import org.apache.shiro.realm.AuthorizingRealm;
+import org.apache.shiro.realm.Realm;
+import org.apache.shiro.session.Session;
 import org.apache.shiro.subject.Subject;
 import org.apache.shiro.subject.support.SubjectThreadState;
-import org.apache.shiro.util.ThreadContext;
+import org.apache.shiro.util.AntPathMatcher;
+import org.apache.shiro.util.Initializable;
 import org.apache.shiro.web.env.DefaultWebEnvironment;
 import org.apache.shiro.web.env.EnvironmentLoader;
 import org.apache.shiro.web.env.WebEnvironment;
+import org.apache.shiro.web.filter.mgt.DefaultFilterChainManager;
 import org.apache.shiro.web.filter.mgt.FilterChainResolver;
+import org.apache.shiro.web.filter.mgt.PathMatchingFilterChainResolver;
 import org.apache.shiro.web.mgt.WebSecurityManager;
 import org.apache.shiro.web.servlet.ShiroFilter;
+import org.apache.shiro.web.subject.WebSubject;
 
 import javax.enterprise.event.Event;
 import javax.enterprise.inject.Instance;
@@ -34,8 +54,17 @@ import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 import static java.util.Optional.ofNullable;
 
@@ -49,9 +78,15 @@ public class ShiroSetup implements ServletContainerInitializer {
     }
 
     public static class CdiShiroFilter extends EnvironmentLoader implements Filter {
-        private ShiroFilter filter;
+        private static final SecurityEvents EVENTS = SecurityEvents.get();
+
+        private Filter filter;
         private SecurityManager securityManager;
         private ServletContext servletContext;
+        private ShiroConfiguration configuration;
+        private boolean requestAuthorizationCache;
+        private BypassMatcher bypass;
+        private volatile LazyInitialization lazy; // null once the security manager is usable
 
         @Inject
         private Instance<WebSecurityManager> manager;
@@ -68,16 +103,105 @@ public class ShiroSetup implements ServletContainerInitializer {
         @Inject
         private Event<Environment> environmentEvent;
 
+        public CdiShiroFilter() {
+            // no-op
+        }
+
+        CdiShiroFilter(final BypassMatcher bypass, final LazyInitialization lazy, final Filter filter) {
+            this.bypass = bypass;
+            this.lazy = lazy;
+            this.filter = filter;
+        }
+
         @Override
         public void init(final FilterConfig filterConfig) throws ServletException {
-            filter = new ShiroFilter();
+            filter = new SubjectHolderShiroFilter();
             servletContext = filterConfig.getServletContext();
+            configuration = configurer.configuration(servletContext::getInitParameter);
+            final String subjectHolder = configuration.get("shiro-cdi.subject-holder", null);
+            if (subjectHolder != null) {
+                SubjectHolders.set(servletContext.getClassLoader(), SubjectHolders.create(subjectHolder));
+            }
+            requestAuthorizationCache = configuration.getBoolean("shiro-cdi.authorization.request-cache", false);
+            bypass = new BypassMatcher(configuration.get("shiro-cdi.bypass", null));
+            if (bypass.isEmpty()) {
+                bypass = null;
+            }
+            if (configuration.getBoolean("shiro-cdi.security-manager.lazy", false)) { // don't delay the startup
+                lazy = new LazyInitialization(() -> {
+                    initialize(filterConfig);
+                    warmUp();
+                });
+                extension.setInitialization(lazy.getFuture(), lazy.getThread()); // injected SecurityManager waits too
+                lazy.start();
+            } else {
+                initialize(filterConfig);
+            }
+        }
+
+        private void initialize(final FilterConfig filterConfig) throws ServletException {
             initEnvironment(servletContext);
             filter.init(filterConfig);
         }
 
+        // realms are not initialized by shiro without an ini so their caches are created on first use, do it now
+        private void warmUp() throws InterruptedException {
+            if (!RealmSecurityManager.class.isInstance(securityManager)) {
+                return;
+            }
+            final Collection<Realm> realms = RealmSecurityManager.class.cast(securityManager).getRealms();
+            if (realms == null || realms.isEmpty()) {
+                return;
+            }
+            final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+            final AtomicInteger counter = new AtomicInteger();
+            final ExecutorService pool = Executors.newFixedThreadPool(Math.min(realms.size(), Runtime.getRuntime().availableProcessors()), r -> {
+                final Thread thread = new Thread(r, "shiro-cdi-warm-up-" + counter.incrementAndGet());
+                thread.setContextClassLoader(loader);
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                final Collection<Future<?>> tasks = new ArrayList<>(realms.size());
+                for (final Realm realm : realms) {
+                    tasks.add(pool.submit(() -> warmUp(realm)));
+                }
+                for (final Future<?> task : tasks) {
+                    task.get();
+                }
+            } catch (final ExecutionException e) {
+                throw new IllegalStateException("Can't warm up the realms", e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        private static void warmUp(final Realm realm) {
+            if (Initializable.class.isInstance(realm)) {
+                Initializable.class.cast(realm).init();
+            }
+            if (AuthorizingRealm.class.isInstance(realm) && AuthorizingRealm.class.cast(realm).getPermissionResolver() != null) {
+                AuthorizingRealm.class.cast(realm).getPermissionResolver().resolvePermission("shiro-cdi:warm-up");
+            }
+        }
+
+        // requests needing security wait for the background initialization in lazy mode
+        private void awaitSecurityManager() throws ServletException {
+            final LazyInitialization initialization = lazy;
+            if (initialization == null) {
+                return;
+            }
+            initialization.await();
+            lazy = null;
+        }
+
         @Override
         public void doFilter(final ServletRequest servletRequest, final ServletResponse servletResponse, final FilterChain filterChain) throws IOException, ServletException {
+            if (bypass != null && bypass.matches(HttpServletRequest.class.cast(servletRequest))) { // no subject for static resources etc
+                filterChain.doFilter(servletRequest, servletResponse);
+                return;
+            }
+            awaitSecurityManager();
             filter.doFilter(new HttpServletRequestWrapper(HttpServletRequest.class.cast(servletRequest)) {
                 @Override
                 public AsyncContext startAsync() throws IllegalStateException {
@@ -90,7 +214,7 @@ public class ShiroSetup implements ServletContainerInitializer {
                 }
 
                 private AsyncContext propagate(final AsyncContext asyncContext) {
-                    final Subject subject = ThreadContext.getSubject();
+                    final Subject subject = SubjectHolders.current();
                     final SubjectThreadState state = new SubjectThreadState(subject);
                     asyncContext.addListener(new AsyncListener() {
                         @Override
@@ -111,21 +235,56 @@ public class ShiroSetup implements ServletContainerInitializer {
                         @Override
                         public void onStartAsync(final AsyncEvent asyncEvent) throws IOException {
                             asyncEvent.getAsyncContext().addListener(this);
+                            final Object event = EVENTS.beginPropagation();
                             state.bind();
+                            if (event != null) {
+                                EVENTS.commitPropagation(event, "async-restart", subject.getPrincipal());
+                            }
                         }
                     });
                     return new AsyncContextWrapper(asyncContext) {
                         @Override
                         public void start(final Runnable runnable) {
-                            super.start(subject.associateWith(runnable));
+                            final Runnable task = subject.associateWith(runnable);
+                            super.start(!EVENTS.isAvailable() ? task : () -> {
+                                final Object event = EVENTS.beginPropagation();
+                                try {
+                                    task.run();
+                                } finally {
+                                    if (event != null) {
+                                        EVENTS.commitPropagation(event, "async-start", subject.getPrincipal());
+                                    }
+                                }
+                            });
                         }
                     };
                 }
-            }, servletResponse, filterChain);
+            }, servletResponse, requestAuthorizationCache ? (request, response) -> { // here the subject is bound
+                AuthorizationMemo.bind();
+                try {
+                    filterChain.doFilter(request, response);
+                } finally {
+                    AuthorizationMemo.unbind();
+                }
+            } : filterChain);
         }
 
         @Override
         public void destroy() {
+            if (servletContext != null) {
+                SubjectHolders.remove(servletContext.getClassLoader());
+            }
+            final LazyInitialization initialization = lazy;
+            if (initialization != null) {
+                try {
+                    initialization.getFuture().get();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (final ExecutionException e) {
+                    return; // nothing was initialized
+                }
+            }
             filter.destroy();
             destroyEnvironment(servletContext);
         }
@@ -133,13 +292,108 @@ public class ShiroSetup implements ServletContainerInitializer {
         @Override
         protected WebEnvironment createEnvironment(final ServletContext sc) {
             final DefaultWebEnvironment environment = new DefaultWebEnvironment();
-            securityManager = configurer.configureManager(!extension.isSecurityManager() ? extension.getSecurityManager() : manager.get());
+            securityManager = configurer.configureManager(!extension.isSecurityManager() ? extension.getSecurityManager() : manager.get(), configuration);
+            if (requestAuthorizationCache && AuthorizingSecurityManager.class.isInstance(securityManager)) {
+                final AuthorizingSecurityManager authorizingSecurityManager = AuthorizingSecurityManager.class.cast(securityManager);
+                if (!RequestCachingAuthorizer.class.isInstance(authorizingSecurityManager.getAuthorizer())) {
+                    authorizingSecurityManager.setAuthorizer(new RequestCachingAuthorizer(authorizingSecurityManager.getAuthorizer()));
+                }
+            }
             environment.setSecurityManager(securityManager);
+            final int chainCacheSize = configuration.getInt("shiro-cdi.filter-chain.cache.max-size", 10000);
             if (environment.getFilterChainResolver() == null && !filterChainResolver.isUnsatisfied()) {
-                environment.setFilterChainResolver(filterChainResolver.get());
+                final FilterChainResolver resolver = filterChainResolver.get();
+                if (PathMatchingFilterChainResolver.class == resolver.getClass() // custom matchers can have another semantic
+                        && AntPathMatcher.class == PathMatchingFilterChainResolver.class.cast(resolver).getPathMatcher().getClass()
+                        && configuration.getBoolean("shiro-cdi.filter-chain.compile", false)) {
+                    environment.setFilterChainResolver(new TrieFilterChainResolver(
+                            PathMatchingFilterChainResolver.class.cast(resolver).getFilterChainManager(), chainCacheSize));
+                } else {
+                    environment.setFilterChainResolver(resolver);
+                }
+            } else if (environment.getFilterChainResolver() == null && configuration.get("shiro-cdi.bearer.paths", null) != null) {
+                final DefaultFilterChainManager chainManager = new DefaultFilterChainManager();
+                chainManager.addFilter("bearer", new BearerTokenFilter());
+                Stream.of(configuration.get("shiro-cdi.bearer.paths", null).split(","))
+                        .map(String::trim)
+                        .filter(p -> !p.isEmpty())
+                        .forEach(path -> chainManager.createChain(path, "bearer"));
+                environment.setFilterChainResolver(new TrieFilterChainResolver(chainManager, chainCacheSize));
             }
             environmentEvent.fire(environment);
             return environment;
         }
+
+        // when the holder is not ThreadContext and no shiro filter needs SecurityUtils, only bind the subject in the holder.
+        // SecurityUtils.getSubject() then returns an anonymous subject: application code must use SubjectHolders or inject Subject
+        static class SubjectHolderShiroFilter extends ShiroFilter {
+            private static final Logger LOGGER = Logger.getLogger(SubjectHolderShiroFilter.class.getName());
+
+            @Override
+            public void init() throws Exception {
+                super.init();
+                final SubjectHolder holder = SubjectHolders.get();
+                if (!ThreadContextSubjectHolder.class.isInstance(holder) && getFilterChainResolver() == null) {
+                    LOGGER.warning("Subject is bound in " + holder.getClass().getName() + " only, SecurityUtils.getSubject() "
+                            + "will not see it, use SubjectHolders.current() or inject Subject");
+                }
+            }
+
+            @Override
+            protected WebSubject createSubject(final ServletRequest request, final ServletResponse response) {
+                final Object event = EVENTS.beginSubject();
+                if (!SecurityMetrics.ENABLED && event == null) {
+                    return super.createSubject(request, response);
+                }
+                final long start = SecurityMetrics.ENABLED ? System.nanoTime() : 0;
+                boolean success = false;
+                try {
+                    final WebSubject subject = super.createSubject(request, response);
+                    success = true;
+                    return subject;
+                } finally {
+                    if (SecurityMetrics.ENABLED) {
+                        SecurityMetrics.get().subjectCreation().record(System.nanoTime() - start, success);
+                    }
+                    if (event != null) {
+                        EVENTS.commitSubject(event, "create", SubjectHolders.get().getClass().getSimpleName(), success);
+                    }
+                }
+            }
+
+            @Override
+            protected void doFilterInternal(final ServletRequest servletRequest, final ServletResponse servletResponse,
+                                            final FilterChain chain) throws ServletException, IOException {
+                final SubjectHolder holder = SubjectHolders.get();
+                if (ThreadContextSubjectHolder.class.isInstance(holder) || getFilterChainResolver() != null) {
+                    super.doFilterInternal(servletRequest, servletResponse, chain);
+                    return;
+                }
+
+                final ServletRequest request = prepareServletRequest(servletRequest, servletResponse, chain);
+                final ServletResponse response = prepareServletResponse(request, servletResponse, chain);
+                final Subject subject = createSubject(request, response);
+                final Object event = EVENTS.beginSubject();
+                final Subject previous = holder.bind(subject);
+                if (event != null) {
+                    EVENTS.commitSubject(event, "bind", holder.getClass().getSimpleName(), true);
+                }
+                try {
+                    if (!isHttpSessions()) { // updateSessionLastAccessTime() but without SecurityUtils
+                        final Session session = subject.getSession(false);
+                        if (session != null) {
+                            session.touch();
+                        }
+                    }
+                    executeChain(request, response, chain);
+                } catch (final ServletException | IOException e) {
+                    throw e;
+                } catch (final RuntimeException e) { // same as AbstractShiroFilter
+                    throw new ServletException("Filtered request failed.", e);
+                } finally {
+                    holder.restore(previous);
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,72 @@
+package com.github.rmannibucau.shiro.wrap;
+
+import com.github.rmannibucau.shiro.interceptor.ShiroSecured;
+
+import javax.enterprise.inject.spi.AnnotatedMethod;
+import javax.enterprise.inject.spi.AnnotatedParameter;
+import javax.enterprise.inject.spi.AnnotatedType;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.github.rmannibucau.shiro.wrap.SecuredAnnotatedType.SHIRO_SECURED_ANNOTATION_LITERAL;
+
+class SecuredAnnotatedMethod<T> implements AnnotatedMethod<T> {
+    private final AnnotatedMethod<T> delegate;
+    private final Set<Annotation> annotations;
+
+    SecuredAnnotatedMethod(final AnnotatedMethod<T> m) {
+        delegate = m;
+        annotations = new HashSet<>(m.getAnnotations().size() + 1);
+        this.annotations.addAll(delegate.getAnnotations());
+        this.annotations.add(SHIRO_SECURED_ANNOTATION_LITERAL);
+    }
+
+    @Override
+    public Method getJavaMember() {
+        return delegate.getJavaMember();
+    }
+
+    @Override
+    public List<AnnotatedParameter<T>> getParameters() {
+        return delegate.getParameters();
+    }
+
+    @Override
+    public boolean isStatic() {
+        return delegate.isStatic();
+    }
+
+    @Override
+    public AnnotatedType<T> getDeclaringType() {
+        return delegate.getDeclaringType();
+    }
+
+    @Override
+    public Type getBaseType() {
+        return delegate.getBaseType();
+    }
+
+    @Override
+    public Set<Type> getTypeClosure() {
+        return delegate.getTypeClosure();
+    }
+
+    @Override
+    public <A extends Annotation> A getAnnotation(final Class<A> annotationType) {
+        return annotationType == ShiroSecured.class ? annotationType.cast(SHIRO_SECURED_ANNOTATION_LITERAL) : delegate.getAnnotation(annotationType);
+    }
+
+    @Override
+    public Set<Annotation> getAnnotations() {
+        return annotations;
+    }
+
+    @Override
+    public boolean isAnnotationPresent(final Class<? extends Annotation> annotationType) {
+        return ShiroSecured.class == annotationType || delegate.isAnnotationPresent(annotationType);
+    }
+}
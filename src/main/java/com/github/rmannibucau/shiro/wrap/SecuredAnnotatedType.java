@@ -0,0 +1,91 @@
+package com.github.rmannibucau.shiro.wrap;
+
+import com.github.rmannibucau.shiro.interceptor.ShiroSecured;
+import com.github.rmannibucau.shiro.literal.ShiroSecuredLiteral;
+
+import javax.enterprise.inject.spi.AnnotatedConstructor;
+import javax.enterprise.inject.spi.AnnotatedField;
+import javax.enterprise.inject.spi.AnnotatedMethod;
+import javax.enterprise.inject.spi.AnnotatedType;
+import javax.enterprise.util.AnnotationLiteral;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static java.util.stream.Collectors.toSet;
+
+public class SecuredAnnotatedType<T> implements AnnotatedType<T> {
+    static final AnnotationLiteral<ShiroSecured> SHIRO_SECURED_ANNOTATION_LITERAL = new ShiroSecuredLiteral();
+
+    private final AnnotatedType<T> delegate;
+    private final Set<AnnotatedMethod<? super T>> methods;
+    private final Set<Annotation> annotations;
+    private final boolean secured;
+
+    public SecuredAnnotatedType(final AnnotatedType<T> annotatedType, final Predicate<Annotation> isShiroAnnotation) {
+        this.delegate = annotatedType;
+        this.secured = delegate.getAnnotations().stream().anyMatch(isShiroAnnotation);
+        this.methods = delegate.getMethods().stream()
+                .<AnnotatedMethod<? super T>>map(m -> m.getAnnotations().stream().anyMatch(isShiroAnnotation) ? secured(m) : m)
+                .collect(toSet());
+        if (secured) {
+            this.annotations = new HashSet<>(delegate.getAnnotations().size() + 1);
+            this.annotations.addAll(delegate.getAnnotations());
+            this.annotations.add(SHIRO_SECURED_ANNOTATION_LITERAL);
+        } else {
+            this.annotations = delegate.getAnnotations();
+        }
+    }
+
+    @Override
+    public Class<T> getJavaClass() {
+        return delegate.getJavaClass();
+    }
+
+    @Override
+    public Set<AnnotatedConstructor<T>> getConstructors() {
+        return delegate.getConstructors();
+    }
+
+    @Override
+    public Set<AnnotatedMethod<? super T>> getMethods() {
+        return methods;
+    }
+
+    @Override
+    public Set<AnnotatedField<? super T>> getFields() {
+        return delegate.getFields();
+    }
+
+    @Override
+    public Type getBaseType() {
+        return delegate.getBaseType();
+    }
+
+    @Override
+    public Set<Type> getTypeClosure() {
+        return delegate.getTypeClosure();
+    }
+
+    @Override
+    public <A extends Annotation> A getAnnotation(final Class<A> annotationType) {
+        return secured && annotationType == ShiroSecured.class ? annotationType.cast(SHIRO_SECURED_ANNOTATION_LITERAL) : delegate.getAnnotation(annotationType);
+    }
+
+    @Override
+    public Set<Annotation> getAnnotations() {
+        return annotations;
+    }
+
+    @Override
+    public boolean isAnnotationPresent(final Class<? extends Annotation> annotationType) {
+        return (secured && annotationType == ShiroSecured.class) || delegate.isAnnotationPresent(annotationType);
+    }
+
+    // captures the method declaring type, no unchecked cast to T
+    private static <X> AnnotatedMethod<X> secured(final AnnotatedMethod<X> method) {
+        return new SecuredAnnotatedMethod<>(method);
+    }
+}
@@ -55,6 +55,7 @@ public class ShiroTest {
                 new Case("user", "pwd", test -> test.service.permTest()),
                 new Case("user", "pwd", test -> test.service.roleTest()),
                 new Case(null, null, test -> test.service.guest()),
+                new Case("user", "pwd", test -> assertEquals("user", test.subject.getPrincipal())),
                 new Case("user", "pwd", test -> {
                     try {
                         test.service.role2Test();
@@ -98,6 +99,9 @@ public class ShiroTest {
     @Inject
     private Service service;
 
+    @Inject
+    private Subject subject;
+
     @Before
     public void inject() {
         MEECROWAVE.inject(this);
@@ -0,0 +1,68 @@
+package com.github.rmannibucau.shiro.authc;
+
+import org.apache.shiro.authc.AuthenticationException;
+import org.apache.shiro.authc.ExpiredCredentialsException;
+import org.apache.shiro.authc.IncorrectCredentialsException;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.subject.Subject;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HmacTokenRealmTest {
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void loginWithCachedVerification() {
+        final AtomicInteger verifications = new AtomicInteger();
+        final HmacTokens tokens = new HmacTokens(SECRET) {
+            @Override
+            public Claims verify(final String token) {
+                verifications.incrementAndGet();
+                return super.verify(token);
+            }
+        };
+        final DefaultSecurityManager manager = new DefaultSecurityManager(new HmacTokenRealm(tokens, 100));
+        final String token = tokens.issue("alice", System.currentTimeMillis() + 60000, asList("admin", "user"));
+        for (int i = 0; i < 3; i++) {
+            final Subject subject = new Subject.Builder(manager).buildSubject();
+            subject.login(new BearerToken(token, "localhost"));
+            assertEquals("alice", subject.getPrincipal());
+            assertTrue(subject.hasRole("admin"));
+            assertFalse(subject.hasRole("other"));
+        }
+        assertEquals(1, verifications.get());
+    }
+
+    @Test
+    public void rejectInvalidTokens() {
+        final HmacTokens tokens = new HmacTokens(SECRET);
+        final DefaultSecurityManager manager = new DefaultSecurityManager(new HmacTokenRealm(tokens, 100));
+        final String token = tokens.issue("alice", System.currentTimeMillis() + 60000, null);
+        final String forged = new HmacTokens("another secret of at least 32 bytes".getBytes(StandardCharsets.UTF_8))
+                .issue("alice", System.currentTimeMillis() + 60000, null);
+        assertLoginFails(manager, token.substring(0, token.length() - 2) + "xx", IncorrectCredentialsException.class);
+        assertLoginFails(manager, forged, IncorrectCredentialsException.class);
+        assertLoginFails(manager, "not a token", IncorrectCredentialsException.class);
+        assertLoginFails(manager, tokens.issue("alice", System.currentTimeMillis() - 1000, null), ExpiredCredentialsException.class);
+        assertNull(tokens.verify(token.replace('.', '-')));
+    }
+
+    private static void assertLoginFails(final DefaultSecurityManager manager, final String token,
+                                         final Class<? extends AuthenticationException> expected) {
+        try {
+            new Subject.Builder(manager).buildSubject().login(new BearerToken(token, null));
+            fail();
+        } catch (final AuthenticationException ae) {
+            assertTrue(ae.getClass().getName(), expected.isInstance(ae) || expected.isInstance(ae.getCause()));
+        }
+    }
+}
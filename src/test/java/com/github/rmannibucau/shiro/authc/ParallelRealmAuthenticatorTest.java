@@ -0,0 +1,221 @@
+package com.github.rmannibucau.shiro.authc;
+
+import org.apache.shiro.authc.AuthenticationException;
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.UnknownAccountException;
+import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.realm.Realm;
+import org.apache.shiro.realm.SimpleAccountRealm;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelRealmAuthenticatorTest {
+    @Test
+    public void firstSuccessCancelsSlowRealms() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final ParallelRealmAuthenticator authenticator = new ParallelRealmAuthenticator(ParallelRealmAuthenticator.Mode.FIRST_SUCCESS, 2, 16);
+        try {
+            final SimpleAccountRealm fast = new SimpleAccountRealm("fast") { // else the slow task can be cancelled before running
+                @Override
+                protected AuthenticationInfo doGetAuthenticationInfo(final AuthenticationToken token) {
+                    try {
+                        started.await(1, TimeUnit.MINUTES);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return super.doGetAuthenticationInfo(token);
+                }
+            };
+            fast.addAccount("user", "secret");
+            authenticator.setRealms(asList(fast, new SlowRealm(started, interrupted)));
+            final long start = System.nanoTime();
+            final AuthenticationInfo info = authenticator.authenticate(new UsernamePasswordToken("user", "secret"));
+            assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+            assertEquals("user", info.getPrincipals().getPrimaryPrincipal());
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        } finally {
+            authenticator.destroy();
+        }
+    }
+
+    @Test
+    public void firstSuccessKeepsRealmOrder() {
+        final CountDownLatch secondDone = new CountDownLatch(1);
+        final ParallelRealmAuthenticator authenticator = new ParallelRealmAuthenticator(ParallelRealmAuthenticator.Mode.FIRST_SUCCESS, 3, 16);
+        try {
+            final SimpleAccountRealm first = new SimpleAccountRealm("first") { // slower than the second one
+                @Override
+                protected AuthenticationInfo doGetAuthenticationInfo(final AuthenticationToken token) {
+                    try {
+                        secondDone.await(1, TimeUnit.MINUTES);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return super.doGetAuthenticationInfo(token);
+                }
+            };
+            first.addAccount("user", "secret");
+            final SimpleAccountRealm second = new SimpleAccountRealm("second") {
+                @Override
+                protected AuthenticationInfo doGetAuthenticationInfo(final AuthenticationToken token) {
+                    try {
+                        return super.doGetAuthenticationInfo(token);
+                    } finally {
+                        secondDone.countDown();
+                    }
+                }
+            };
+            second.addAccount("user", "secret");
+            final Realm failing = new SimpleAccountRealm("failing") {
+                @Override
+                protected AuthenticationInfo doGetAuthenticationInfo(final AuthenticationToken token) {
+                    throw new IllegalStateException("down");
+                }
+            };
+
+            authenticator.setRealms(asList(first, second));
+            assertEquals(singletonList("first"),
+                    asList(authenticator.authenticate(new UsernamePasswordToken("user", "secret")).getPrincipals().getRealmNames().toArray()));
+
+            authenticator.setRealms(asList(failing, realm("unknown", "other"), second));
+            assertEquals(singletonList("second"),
+                    asList(authenticator.authenticate(new UsernamePasswordToken("user", "secret")).getPrincipals().getRealmNames().toArray()));
+        } finally {
+            authenticator.destroy();
+        }
+    }
+
+    @Test
+    public void firstSuccessWithoutAccount() {
+        final ParallelRealmAuthenticator authenticator = new ParallelRealmAuthenticator(ParallelRealmAuthenticator.Mode.FIRST_SUCCESS, 2, 16);
+        try {
+            authenticator.setRealms(asList(realm("a", "other"), realm("b", "another")));
+            authenticator.authenticate(new UsernamePasswordToken("user", "secret"));
+            fail();
+        } catch (final AuthenticationException ae) {
+            assertTrue(ae.getMessage(), ae.getMessage().contains("could not be authenticated by any configured realms"));
+        } finally {
+            authenticator.destroy();
+        }
+    }
+
+    @Test
+    public void allSuccessMergesInRealmOrder() {
+        final ParallelRealmAuthenticator authenticator = new ParallelRealmAuthenticator(ParallelRealmAuthenticator.Mode.ALL_SUCCESS, 2, 16);
+        try {
+            authenticator.setRealms(asList(realm("a", "user"), realm("b", "user")));
+            final AuthenticationInfo info = authenticator.authenticate(new UsernamePasswordToken("user", "secret"));
+            assertEquals(asList("a", "b"), asList(info.getPrincipals().getRealmNames().toArray()));
+
+            authenticator.setRealms(asList(realm("a", "user"), realm("b", "other")));
+            try {
+                authenticator.authenticate(new UsernamePasswordToken("user", "secret"));
+                fail();
+            } catch (final UnknownAccountException uae) {
+                // expected
+            }
+        } finally {
+            authenticator.destroy();
+        }
+    }
+
+    @Test
+    public void atLeastOneSuccessMergesTheSuccesses() {
+        final ParallelRealmAuthenticator authenticator = new ParallelRealmAuthenticator(ParallelRealmAuthenticator.Mode.AT_LEAST_ONE_SUCCESS, 2, 16);
+        try {
+            final Realm failing = new SimpleAccountRealm("failing") {
+                @Override
+                protected AuthenticationInfo doGetAuthenticationInfo(final AuthenticationToken token) {
+                    throw new IllegalStateException("down");
+                }
+            };
+            authenticator.setRealms(asList(realm("a", "user"), realm("b", "other"), failing, realm("c", "user")));
+            final AuthenticationInfo info = authenticator.authenticate(new UsernamePasswordToken("user", "secret"));
+            assertEquals(asList("a", "c"), asList(info.getPrincipals().getRealmNames().toArray()));
+            assertEquals("user", info.getPrincipals().getPrimaryPrincipal());
+
+            authenticator.setRealms(asList(realm("a", "other"), failing));
+            try {
+                authenticator.authenticate(new UsernamePasswordToken("user", "secret"));
+                fail();
+            } catch (final AuthenticationException ae) {
+                assertTrue(ae.getMessage(), ae.getMessage().contains("could not be authenticated by any configured realms"));
+            }
+        } finally {
+            authenticator.destroy();
+        }
+    }
+
+    @Test
+    public void workersDontInheritTheRequestThreadContext() {
+        final Collection<Object> seen = new ConcurrentLinkedQueue<>();
+        final ParallelRealmAuthenticator authenticator = new ParallelRealmAuthenticator(ParallelRealmAuthenticator.Mode.AT_LEAST_ONE_SUCCESS, 2, 16);
+        ThreadContext.put("request", "user"); // workers are created by the first login
+        try {
+            final SimpleAccountRealm a = new SimpleAccountRealm("a") {
+                @Override
+                protected AuthenticationInfo doGetAuthenticationInfo(final AuthenticationToken token) {
+                    seen.add(String.valueOf(ThreadContext.get("request")));
+                    return super.doGetAuthenticationInfo(token);
+                }
+            };
+            a.addAccount("user", "secret");
+            final SimpleAccountRealm b = new SimpleAccountRealm("b") {
+                @Override
+                protected AuthenticationInfo doGetAuthenticationInfo(final AuthenticationToken token) {
+                    seen.add(String.valueOf(ThreadContext.get("request")));
+                    return super.doGetAuthenticationInfo(token);
+                }
+            };
+            authenticator.setRealms(asList(a, b));
+            authenticator.authenticate(new UsernamePasswordToken("user", "secret"));
+            assertEquals(asList("null", "null"), new ArrayList<>(seen));
+        } finally {
+            ThreadContext.remove();
+            authenticator.destroy();
+        }
+    }
+
+    private static Realm realm(final String name, final String user) {
+        final SimpleAccountRealm realm = new SimpleAccountRealm(name);
+        realm.addAccount(user, "secret");
+        return realm;
+    }
+
+    private static class SlowRealm extends SimpleAccountRealm {
+        private final CountDownLatch started;
+        private final CountDownLatch interrupted;
+
+        private SlowRealm(final CountDownLatch started, final CountDownLatch interrupted) {
+            super("slow");
+            this.started = started;
+            this.interrupted = interrupted;
+        }
+
+        @Override
+        protected AuthenticationInfo doGetAuthenticationInfo(final AuthenticationToken token) {
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (final InterruptedException e) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }
+    }
+}
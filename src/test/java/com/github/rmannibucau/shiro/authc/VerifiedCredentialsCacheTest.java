@@ -0,0 +1,66 @@
+package com.github.rmannibucau.shiro.authc;
+
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.SimpleAuthenticationInfo;
+import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.authc.credential.CredentialsMatcher;
+import org.apache.shiro.authc.credential.SimpleCredentialsMatcher;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VerifiedCredentialsCacheTest {
+    private final AtomicInteger verifications = new AtomicInteger();
+    private final CredentialsMatcher slow = (token, info) -> {
+        verifications.incrementAndGet();
+        return new SimpleCredentialsMatcher().doCredentialsMatch(token, info);
+    };
+
+    @Test
+    public void skipVerificationOfKnownCredentials() {
+        final CredentialsMatcher matcher = new VerifiedCredentialsCache(100, 60000, true).wrap(slow, "realm");
+        final AuthenticationInfo info = new SimpleAuthenticationInfo("alice", "secret", "realm");
+        for (int i = 0; i < 5; i++) {
+            assertTrue(matcher.doCredentialsMatch(new UsernamePasswordToken("alice", "secret"), info));
+        }
+        assertEquals(1, verifications.get());
+
+        assertFalse(matcher.doCredentialsMatch(new UsernamePasswordToken("alice", "wrong"), info)); // failures are never cached
+        assertFalse(matcher.doCredentialsMatch(new UsernamePasswordToken("alice", "wrong"), info));
+        assertEquals(3, verifications.get());
+    }
+
+    @Test
+    public void passwordChange() {
+        final CredentialsMatcher matcher = new VerifiedCredentialsCache(100, 60000, true).wrap(slow, "realm");
+        assertTrue(matcher.doCredentialsMatch(new UsernamePasswordToken("alice", "secret"), new SimpleAuthenticationInfo("alice", "secret", "realm")));
+
+        final AuthenticationInfo changed = new SimpleAuthenticationInfo("alice", "other", "realm");
+        assertFalse(matcher.doCredentialsMatch(new UsernamePasswordToken("alice", "secret"), changed));
+        assertTrue(matcher.doCredentialsMatch(new UsernamePasswordToken("alice", "other"), changed));
+        assertEquals(3, verifications.get());
+    }
+
+    @Test
+    public void logoutAndTtl() throws InterruptedException {
+        final VerifiedCredentialsCache cache = new VerifiedCredentialsCache(100, 100, true);
+        final CredentialsMatcher matcher = cache.wrap(slow, "realm");
+        final AuthenticationInfo info = new SimpleAuthenticationInfo("alice", "secret", "realm");
+        assertTrue(matcher.doCredentialsMatch(new UsernamePasswordToken("alice", "secret"), info));
+        assertEquals(1, cache.size());
+
+        cache.onLogout(new SimplePrincipalCollection("alice", "realm"));
+        assertEquals(0, cache.size());
+        assertTrue(matcher.doCredentialsMatch(new UsernamePasswordToken("alice", "secret"), info));
+        assertEquals(2, verifications.get());
+
+        Thread.sleep(200);
+        assertTrue(matcher.doCredentialsMatch(new UsernamePasswordToken("alice", "secret"), info));
+        assertEquals(3, verifications.get());
+    }
+}
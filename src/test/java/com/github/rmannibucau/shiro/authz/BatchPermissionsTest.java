@@ -0,0 +1,64 @@
+package com.github.rmannibucau.shiro.authz;
+
+import com.github.rmannibucau.shiro.metrics.CacheStats;
+import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.authz.ModularRealmAuthorizer;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.realm.SimpleAccountRealm;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchPermissionsTest {
+    private static final List<String> PERMISSIONS = asList("menu:orders", "menu:admin", "menu:users:edit", "menu:reports");
+
+    @Test
+    public void sameDecisionsWithOrWithoutBatchAuthorizer() {
+        final SimpleAccountRealm realm = new SimpleAccountRealm("test") {
+            {
+                addAccount("user", "pwd");
+                getUser("user").addStringPermission("menu:orders");
+                getUser("user").addStringPermission("menu:users:*");
+            }
+        };
+        PermissionIndexAuthorizerTest.cacheAuthorization(realm);
+        final DefaultSecurityManager manager = new DefaultSecurityManager(realm);
+        final Subject subject = new Subject.Builder(manager).buildSubject();
+        assertTrue(BatchPermissions.permitted(subject, PERMISSIONS).isEmpty()); // anonymous
+        subject.login(new UsernamePasswordToken("user", "pwd"));
+
+        final BitSet expected = new BitSet();
+        expected.set(0);
+        expected.set(2);
+
+        manager.setAuthorizer(new ModularRealmAuthorizer(manager.getRealms())); // fallback
+        assertEquals(expected, BatchPermissions.permitted(subject, PERMISSIONS));
+
+        final CacheStats stats = new CacheStats();
+        manager.setAuthorizer(new PermissionIndexAuthorizer(manager.getRealms(), 100, stats));
+        assertEquals(expected, BatchPermissions.permitted(subject, PERMISSIONS));
+        assertEquals(1, stats.getHits() + stats.getMisses()); // index resolved once for the batch
+
+        final CacheStats memoized = new CacheStats();
+        manager.setAuthorizer(new RequestCachingAuthorizer(new PermissionIndexAuthorizer(manager.getRealms(), 100, memoized)));
+        AuthorizationMemo.bind();
+        try {
+            assertTrue(subject.isPermitted("menu:orders")); // memoized, the others are computed in batch
+            assertEquals(1, memoized.getMisses());
+            assertEquals(expected, BatchPermissions.permitted(subject, PERMISSIONS));
+            assertEquals(1, memoized.getHits()); // one resolution for the 3 missing permissions
+            assertEquals(expected, BatchPermissions.permitted(subject, PERMISSIONS)); // all memoized
+            assertEquals(1, memoized.getHits());
+        } finally {
+            AuthorizationMemo.unbind();
+            ThreadContext.remove();
+        }
+    }
+}
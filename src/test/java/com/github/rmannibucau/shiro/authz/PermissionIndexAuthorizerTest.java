@@ -0,0 +1,131 @@
+package com.github.rmannibucau.shiro.authz;
+
+import com.github.rmannibucau.shiro.cache.BoundedCacheManager;
+import com.github.rmannibucau.shiro.metrics.CacheStats;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.apache.shiro.realm.AuthorizingRealm;
+import org.apache.shiro.realm.SimpleAccountRealm;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PermissionIndexAuthorizerTest {
+    @Test
+    public void sameDecisionsAsWildcardPermission() {
+        final String[] held = {"orders:read", "users:*:edit", "printer:print,query:lp7200", "admin:*", "docs:view:*", "a:b:c:d"};
+        final SimpleAccountRealm realm = new SimpleAccountRealm("test") {
+            {
+                addAccount("user", "pwd");
+                Stream.of(held).forEach(p -> getUser("user").addStringPermission(p));
+            }
+        };
+        cacheAuthorization(realm);
+
+        final PrincipalCollection principals = new SimplePrincipalCollection("user", "test");
+        final CacheStats stats = new CacheStats();
+        final PermissionIndexAuthorizer authorizer = new PermissionIndexAuthorizer(singletonList(realm), 100, stats);
+        final String[] requested = {
+                "orders:read", "orders:read:42", "ORDERS:Read", "orders", "orders:write",
+                "users:1:edit", "users:1:view", "users:1", "users",
+                "printer:print:lp7200", "printer:query:lp7200", "printer:print", "printer:print:epson", "printer:print,query:lp7200",
+                "admin", "admin:x", "admin:x:y", "docs:view", "docs:view:1", "docs", "a:b:c", "a:b:c:d:e", "a:*:c:d", "*"};
+        Stream.of(requested).forEach(permission -> {
+            final WildcardPermission wildcard = new WildcardPermission(permission);
+            final boolean expected = Stream.of(held).anyMatch(p -> new WildcardPermission(p).implies(wildcard));
+            assertEquals(permission, expected, authorizer.isPermitted(principals, permission));
+            assertEquals(permission, expected, authorizer.isPermitted(principals, wildcard));
+        });
+
+        // the trie was built once then used for all the checks but the multi-valued request (shiro fallback)
+        assertEquals(1, stats.getMisses());
+        assertEquals((requested.length - 1) * 2 - 1, stats.getHits());
+    }
+
+    @Test
+    public void notIndexedWithoutStableAuthorizationInfo() {
+        final SimpleAccountRealm realm = new SimpleAccountRealm("test") {
+            {
+                addAccount("user", "pwd");
+                getUser("user").addStringPermission("orders:read");
+            }
+        };
+        final CacheStats stats = new CacheStats();
+        final PermissionIndexAuthorizer authorizer = new PermissionIndexAuthorizer(singletonList(realm), 100, stats);
+        final PrincipalCollection principals = new SimplePrincipalCollection("user", "test");
+        assertTrue(authorizer.isPermitted(principals, "orders:read"));
+        assertFalse(authorizer.isPermitted(principals, "orders:write"));
+        assertEquals(0, stats.getHits() + stats.getMisses()); // shiro logic
+    }
+
+    @Test
+    public void batchDecisions() {
+        final SimpleAccountRealm realm = new SimpleAccountRealm("test") {
+            {
+                addAccount("user", "pwd");
+                getUser("user").addStringPermission("orders:read");
+                getUser("user").addStringPermission("users:*:edit");
+            }
+        };
+        final SimpleAccountRealm other = new SimpleAccountRealm("other") {
+            {
+                addAccount("user", "pwd");
+                getUser("user").addStringPermission("admin:*");
+            }
+        };
+        cacheAuthorization(realm);
+        cacheAuthorization(other);
+        final PrincipalCollection principals = new SimplePrincipalCollection("user", "test");
+        final CacheStats stats = new CacheStats();
+        final PermissionIndexAuthorizer authorizer = new PermissionIndexAuthorizer(asList(realm, other), 100, stats);
+        final List<String> permissions = asList("orders:read", "orders:write", "users:1:edit", "admin:x", "users:1:view");
+        final BitSet permitted = authorizer.permitted(principals, permissions);
+        assertEquals(2, stats.getMisses()); // one index per realm for the whole batch
+        assertEquals(0, stats.getHits());
+
+        assertEquals(permitted, authorizer.permitted(principals, permissions));
+        assertEquals(2, stats.getHits()); // once per realm again, not once per permission
+
+        for (int i = 0; i < permissions.size(); i++) {
+            assertEquals(permissions.get(i), authorizer.isPermitted(principals, permissions.get(i)), permitted.get(i));
+        }
+        assertEquals(3, permitted.cardinality());
+    }
+
+    @Test
+    public void batchStopsOnceEverythingIsPermitted() {
+        final SimpleAccountRealm realm = new SimpleAccountRealm("test") {
+            {
+                addAccount("user", "pwd");
+                getUser("user").addStringPermission("*");
+            }
+        };
+        final SimpleAccountRealm other = new SimpleAccountRealm("other") {
+            {
+                addAccount("user", "pwd");
+            }
+        };
+        cacheAuthorization(realm);
+        cacheAuthorization(other);
+        final CacheStats stats = new CacheStats();
+        final PermissionIndexAuthorizer authorizer = new PermissionIndexAuthorizer(asList(realm, other), 100, stats);
+        final BitSet permitted = authorizer.permitted(new SimplePrincipalCollection("user", "test"), asList("a", "b:c", "d:e:f"));
+        assertEquals(3, permitted.cardinality());
+        assertEquals(1, stats.getMisses()); // second realm not queried
+    }
+
+    static void cacheAuthorization(final AuthorizingRealm realm) {
+        realm.setCachingEnabled(true);
+        realm.setAuthorizationCachingEnabled(true);
+        realm.setCacheManager(new BoundedCacheManager(100, 0, 1));
+    }
+}
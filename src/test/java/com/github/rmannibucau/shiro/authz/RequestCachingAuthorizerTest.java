@@ -0,0 +1,141 @@
+package com.github.rmannibucau.shiro.authz;
+
+import org.apache.shiro.authz.ModularRealmAuthorizer;
+import org.apache.shiro.realm.SimpleAccountRealm;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RequestCachingAuthorizerTest {
+    private final TestRealm realm = new TestRealm();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final RequestCachingAuthorizer authorizer = new RequestCachingAuthorizer(new ModularRealmAuthorizer(singletonList(realm)) {
+        @Override
+        public boolean isPermitted(final PrincipalCollection principals, final String permission) {
+            calls.incrementAndGet();
+            return super.isPermitted(principals, permission);
+        }
+
+        @Override
+        public boolean hasRole(final PrincipalCollection principals, final String role) {
+            calls.incrementAndGet();
+            return super.hasRole(principals, role);
+        }
+    });
+    private final PrincipalCollection admin = new SimplePrincipalCollection("admin", "test");
+    private final PrincipalCollection user = new SimplePrincipalCollection("user", "test");
+
+    @After
+    public void unbind() {
+        ThreadContext.remove();
+    }
+
+    @Test
+    public void noMemoWithoutRequest() {
+        assertNull(AuthorizationMemo.current());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(authorizer.isPermitted(admin, "orders:read"));
+            assertTrue(authorizer.hasRole(admin, "admin"));
+        }
+        assertEquals(6, calls.get());
+    }
+
+    @Test
+    public void memoizedInRequest() {
+        AuthorizationMemo.bind();
+        try {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(authorizer.isPermitted(admin, "orders:read"));
+                assertTrue(authorizer.isPermittedAll(admin, "orders:read"));
+                assertTrue(authorizer.hasRole(admin, "admin"));
+                assertFalse(authorizer.hasRole(admin, "other"));
+            }
+            assertEquals(3, calls.get());
+        } finally {
+            AuthorizationMemo.unbind();
+        }
+    }
+
+    @Test
+    public void keyedPerPrincipal() {
+        AuthorizationMemo.bind();
+        try {
+            assertTrue(authorizer.isPermitted(admin, "orders:read"));
+            assertFalse(authorizer.isPermitted(user, "orders:read")); // not the admin decision
+            assertTrue(authorizer.hasRole(admin, "admin"));
+            assertFalse(authorizer.hasRole(user, "admin"));
+            assertEquals(4, calls.get());
+
+            assertTrue(authorizer.isPermitted(admin, "orders:read"));
+            assertFalse(authorizer.isPermitted(user, "orders:read"));
+            assertEquals(4, calls.get());
+        } finally {
+            AuthorizationMemo.unbind();
+        }
+    }
+
+    @Test
+    public void clearedAtRequestEnd() {
+        AuthorizationMemo.bind();
+        final AuthorizationMemo first = AuthorizationMemo.current();
+        assertNotNull(first);
+        try {
+            assertTrue(authorizer.isPermitted(admin, "orders:read"));
+        } finally {
+            AuthorizationMemo.unbind();
+        }
+        assertNull(AuthorizationMemo.current());
+
+        realm.revoke("admin"); // between requests
+        assertFalse(authorizer.isPermitted(admin, "orders:read"));
+
+        AuthorizationMemo.bind(); // next request starts empty
+        try {
+            assertNotSame(first, AuthorizationMemo.current());
+            assertFalse(authorizer.isPermitted(admin, "orders:read"));
+            assertEquals(3, calls.get());
+        } finally {
+            AuthorizationMemo.unbind();
+        }
+    }
+
+    @Test
+    public void notInheritedByThreadsStartedInRequest() throws InterruptedException {
+        final AtomicReference<AuthorizationMemo> seen = new AtomicReference<>();
+        AuthorizationMemo.bind();
+        try {
+            final Thread thread = new Thread(() -> seen.set(AuthorizationMemo.current()));
+            thread.start();
+            thread.join();
+        } finally {
+            AuthorizationMemo.unbind();
+        }
+        assertNull(seen.get());
+    }
+
+    private static class TestRealm extends SimpleAccountRealm {
+        private TestRealm() {
+            super("test");
+            addAccount("admin", "pwd", "admin");
+            addAccount("user", "pwd");
+            getUser("admin").addStringPermission("orders:*");
+        }
+
+        private void revoke(final String username) {
+            getUser(username).setStringPermissions(null);
+        }
+    }
+}
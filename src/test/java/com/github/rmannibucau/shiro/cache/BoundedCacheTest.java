@@ -0,0 +1,55 @@
+package com.github.rmannibucau.shiro.cache;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BoundedCacheTest {
+    @Test
+    public void evictLeastRecentlyUsed() {
+        final BoundedCache<String, String> cache = new BoundedCache<>(2, 0, 1);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertEquals("1", cache.get("a"));
+        cache.put("c", "3");
+        assertNull(cache.get("b"));
+        assertEquals("1", cache.get("a"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void expire() throws InterruptedException {
+        final BoundedCache<String, String> cache = new BoundedCache<>(10, TimeUnit.MILLISECONDS.toNanos(50), 4);
+        cache.put("a", "1");
+        assertEquals("1", cache.get("a"));
+        Thread.sleep(100);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.keys().size());
+    }
+
+    @Test
+    public void removeAndClear() {
+        final BoundedCache<String, String> cache = new BoundedCache<>(100, 0, 4);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertEquals("1", cache.remove("a"));
+        assertEquals(1, cache.values().size());
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void removeIf() {
+        final BoundedCache<String, String> cache = new BoundedCache<>(100, 0, 4);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "1");
+        cache.removeIf((k, v) -> "1".equals(v));
+        assertEquals(1, cache.size());
+        assertEquals("2", cache.get("b"));
+    }
+}
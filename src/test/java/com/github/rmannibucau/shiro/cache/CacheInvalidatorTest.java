@@ -0,0 +1,100 @@
+package com.github.rmannibucau.shiro.cache;
+
+import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.realm.SimpleAccountRealm;
+import org.apache.shiro.subject.Subject;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeNoException;
+import static org.junit.Assume.assumeTrue;
+
+public class CacheInvalidatorTest {
+    @Test
+    public void evictPrincipal() {
+        final SimpleAccountRealm realm = new SimpleAccountRealm("test");
+        realm.addAccount("alice", "secret", "admin");
+        realm.addAccount("bob", "secret", "user");
+        realm.setAuthorizationCachingEnabled(true);
+        final DefaultSecurityManager manager = new DefaultSecurityManager(realm);
+        manager.setCacheManager(new BoundedCacheManager(100, 60000, 4));
+        for (final String user : new String[]{"alice", "bob"}) {
+            final Subject subject = new Subject.Builder(manager).buildSubject();
+            subject.login(new UsernamePasswordToken(user, "secret"));
+            subject.hasRole("admin");
+        }
+        assertEquals(2, realm.getAuthorizationCache().size());
+
+        CacheInvalidator.evict(manager, "alice");
+        assertEquals(1, realm.getAuthorizationCache().size());
+        assertEquals("bob", realm.getAuthorizationCache().keys().iterator().next().toString());
+    }
+
+    @Test
+    public void localTransport() {
+        final List<CacheInvalidation> received = new ArrayList<>();
+        final LocalInvalidationTransport node1 = new LocalInvalidationTransport("test");
+        final LocalInvalidationTransport node2 = new LocalInvalidationTransport("test");
+        final LocalInvalidationTransport other = new LocalInvalidationTransport("other");
+        node1.start(i -> received.add(new CacheInvalidation(i.getPrincipal(), "1:" + i.getOrigin())));
+        node2.start(i -> received.add(new CacheInvalidation(i.getPrincipal(), "2:" + i.getOrigin())));
+        other.start(i -> received.add(i));
+        try {
+            node1.publish(new CacheInvalidation("alice", "node1"));
+            assertEquals(1, received.size());
+            assertEquals("alice", received.get(0).getPrincipal());
+            assertEquals("2:node1", received.get(0).getOrigin());
+
+            node2.close();
+            node1.publish(new CacheInvalidation("bob", "node1"));
+            assertEquals(1, received.size());
+        } finally {
+            node1.close();
+            other.close();
+        }
+    }
+
+    @Test
+    public void multicastTransport() throws Exception {
+        final CountDownLatch received = new CountDownLatch(1);
+        final List<CacheInvalidation> invalidations = new ArrayList<>();
+        final MulticastInvalidationTransport sender = new MulticastInvalidationTransport(InetAddress.getByName("239.255.27.1"), 45599, 0, null);
+        final MulticastInvalidationTransport receiver = new MulticastInvalidationTransport(InetAddress.getByName("239.255.27.1"), 45599, 0, null);
+        try {
+            sender.start(i -> {
+                // no-op
+            });
+            receiver.start(i -> {
+                synchronized (invalidations) {
+                    invalidations.add(i);
+                }
+                received.countDown();
+            });
+        } catch (final IllegalStateException ise) { // no multicast on this machine
+            sender.close();
+            receiver.close();
+            assumeNoException(ise);
+        }
+        try {
+            for (int i = 0; i < 10 && received.getCount() > 0; i++) { // udp
+                sender.publish(new CacheInvalidation("alice", "node1"));
+                received.await(200, TimeUnit.MILLISECONDS);
+            }
+            assumeTrue(received.getCount() == 0); // routing can be missing on build machines
+            synchronized (invalidations) {
+                assertEquals("alice", invalidations.get(0).getPrincipal());
+                assertEquals("node1", invalidations.get(0).getOrigin());
+            }
+        } finally {
+            sender.close();
+            receiver.close();
+        }
+    }
+}
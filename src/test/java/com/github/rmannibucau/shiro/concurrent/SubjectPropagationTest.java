@@ -0,0 +1,32 @@
+package com.github.rmannibucau.shiro.concurrent;
+
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class SubjectPropagationTest {
+    @Test
+    public void propagate() throws ExecutionException, InterruptedException {
+        final ExecutorService pool = SubjectPropagation.wrap(Executors.newSingleThreadExecutor());
+        pool.submit(() -> null).get(); // create the worker before binding the subject, ThreadContext is inheritable
+        final DefaultSecurityManager manager = new DefaultSecurityManager();
+        final Subject subject = manager.createSubject(null);
+        ThreadContext.bind(subject);
+        try {
+            assertSame(subject, pool.submit(ThreadContext::getSubject).get());
+            assertSame(subject, SubjectPropagation.supplyAsync(ThreadContext::getSubject, pool).get());
+        } finally {
+            ThreadContext.remove();
+        }
+        assertNull(pool.submit(ThreadContext::getSubject).get()); // restored after each task
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.rmannibucau.shiro.event;
+
+import org.apache.shiro.event.Subscribe;
+import org.apache.shiro.event.support.DefaultEventBus;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncEventBusTest {
+    @Test
+    public void deliverFromManyProducers() throws InterruptedException {
+        final List<Object> cdi = new ArrayList<>();
+        final List<Integer> batches = new ArrayList<>();
+        final Subscriber subscriber = new Subscriber();
+        final AsyncEventBus bus = new AsyncEventBus(new DefaultEventBus(), event -> {
+            if (EventBatch.class.isInstance(event)) {
+                batches.add(EventBatch.class.cast(event).getEvents().size());
+            } else {
+                cdi.add(event);
+            }
+        }, 64, 16, AsyncEventBus.Overflow.BLOCK); // small buffer to exercise the blocking
+        bus.register(subscriber);
+
+        final ExecutorService producers = Executors.newFixedThreadPool(4);
+        final Thread caller = Thread.currentThread();
+        for (int p = 0; p < 4; p++) {
+            final int producer = p;
+            producers.execute(() -> {
+                for (int i = 0; i < 2500; i++) {
+                    bus.publish(new Login(producer * 10000 + i));
+                }
+            });
+        }
+        producers.shutdown();
+        assertTrue(producers.awaitTermination(1, TimeUnit.MINUTES));
+        bus.destroy(); // drains
+
+        assertEquals(10000, cdi.size());
+        assertEquals(10000, subscriber.logins.size());
+        assertEquals(10000, batches.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batches.stream().allMatch(size -> size <= 16));
+        assertNotEquals(caller, subscriber.thread);
+        for (int p = 0; p < 4; p++) { // per producer order is kept
+            int last = -1;
+            for (final Object event : cdi) {
+                final int id = Login.class.cast(event).id;
+                if (id / 10000 == p) {
+                    assertTrue(id > last);
+                    last = id;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void dropOnOverflow() throws InterruptedException {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AsyncEventBus bus = new AsyncEventBus(new DefaultEventBus(), event -> {
+            blocked.countDown();
+            try {
+                release.await(1, TimeUnit.MINUTES);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 4, 1, AsyncEventBus.Overflow.DROP);
+        bus.publish("first");
+        assertTrue(blocked.await(1, TimeUnit.MINUTES)); // dispatcher is stuck on the first event
+        for (int i = 0; i < 10; i++) {
+            bus.publish("event-" + i);
+        }
+        assertEquals(6, bus.getDropped());
+        release.countDown();
+        bus.destroy();
+    }
+
+    public static class Login {
+        private final int id;
+
+        private Login(final int id) {
+            this.id = id;
+        }
+    }
+
+    public static class Subscriber {
+        private final List<Login> logins = new ArrayList<>();
+        private volatile Thread thread;
+
+        @Subscribe
+        public void onLogin(final Login login) {
+            thread = Thread.currentThread();
+            logins.add(login);
+        }
+    }
+}
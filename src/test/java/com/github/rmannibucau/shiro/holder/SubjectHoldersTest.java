@@ -0,0 +1,40 @@
+package com.github.rmannibucau.shiro.holder;
+
+import org.junit.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import static org.junit.Assert.assertSame;
+
+public class SubjectHoldersTest {
+    @Test
+    public void applicationScoped() throws Exception {
+        final SubjectHolder global = SubjectHolders.get();
+        final SubjectHolder first = new ThreadLocalSubjectHolder();
+        final SubjectHolder second = new ThreadLocalSubjectHolder();
+        final Thread thread = Thread.currentThread();
+        final ClassLoader original = thread.getContextClassLoader();
+        try (final URLClassLoader app1 = new URLClassLoader(new URL[0], original);
+             final URLClassLoader app2 = new URLClassLoader(new URL[0], original)) {
+            SubjectHolders.set(app1, first);
+            SubjectHolders.set(app2, second);
+            try {
+                thread.setContextClassLoader(app1);
+                assertSame(first, SubjectHolders.get());
+                thread.setContextClassLoader(app2);
+                assertSame(second, SubjectHolders.get());
+                thread.setContextClassLoader(original);
+                assertSame(global, SubjectHolders.get());
+            } finally {
+                SubjectHolders.remove(app1);
+                SubjectHolders.remove(app2);
+                thread.setContextClassLoader(original);
+            }
+            thread.setContextClassLoader(app1);
+            assertSame(global, SubjectHolders.get());
+        } finally {
+            thread.setContextClassLoader(original);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.rmannibucau.shiro.http;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BypassMatcherTest {
+    private final BypassMatcher matcher = new BypassMatcher("/static/*, *.css,/health, /assets/**");
+
+    @Test
+    public void prefix() {
+        assertTrue(matcher.matches("/static", ""));
+        assertTrue(matcher.matches("/static", "/app.js"));
+        assertTrue(matcher.matches("", "/static/app.js"));
+        assertTrue(matcher.matches("/sta", "tic/app.js"));
+        assertTrue(matcher.matches("/assets/img/logo.png", ""));
+        assertFalse(matcher.matches("/staticfoo", ""));
+        assertFalse(matcher.matches("/api", "/static"));
+    }
+
+    @Test
+    public void exact() {
+        assertTrue(matcher.matches("/health", ""));
+        assertTrue(matcher.matches("", "/health"));
+        assertFalse(matcher.matches("/health", "/details"));
+        assertFalse(matcher.matches("/healthz", ""));
+    }
+
+    @Test
+    public void extension() {
+        assertTrue(matcher.matches("/theme/main.css", ""));
+        assertTrue(matcher.matches("/api", "/main.css"));
+        assertFalse(matcher.matches("/api", "/main.cssx"));
+    }
+
+    @Test
+    public void empty() {
+        assertTrue(new BypassMatcher(null).isEmpty());
+        assertTrue(new BypassMatcher(" , ").isEmpty());
+        assertFalse(matcher.isEmpty());
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.rmannibucau.shiro.http;
+
+import org.apache.shiro.util.AntPathMatcher;
+import org.apache.shiro.web.filter.authc.AnonymousFilter;
+import org.apache.shiro.web.filter.mgt.DefaultFilterChainManager;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TrieFilterChainResolverTest {
+    @Test
+    public void firstDefinitionWins() {
+        final TrieFilterChainResolver resolver = resolver("/api/public/**", "/api/*/admin", "/api/**", "/**/*.css", "/login", "/a?c/*.json");
+        assertEquals("/api/public/**", resolver.resolve("/api/public"));
+        assertEquals("/api/public/**", resolver.resolve("/api/public/x/y"));
+        assertEquals("/api/*/admin", resolver.resolve("/api/v1/admin"));
+        assertEquals("/api/**", resolver.resolve("/api/v1/admin/x"));
+        assertEquals("/api/**", resolver.resolve("/api/style.css"));
+        assertEquals("/**/*.css", resolver.resolve("/static/style.css"));
+        assertEquals("/login", resolver.resolve("/login"));
+        assertEquals("/login", resolver.resolve("/login/")); // ant would not match, safer for security chains
+        assertEquals("/a?c/*.json", resolver.resolve("/abc/data.json"));
+        assertNull(resolver.resolve("/abbc/data.json"));
+        assertNull(resolver.resolve("/other"));
+        assertNull(resolver.resolve("/other")); // cached miss
+    }
+
+    @Test
+    public void sameResultsAsAntMatching() {
+        final String[] segments = {"api", "v1", "admin", "*", "**", "a*", "*.css", "?1", "users"};
+        final String[] pathSegments = {"api", "v1", "admin", "users", "a.css", "x1", "abc", "other"};
+        final Random random = new Random(42);
+        final String[] patterns = new String[300];
+        for (int i = 0; i < patterns.length; i++) {
+            final StringBuilder pattern = new StringBuilder();
+            for (int j = 0, count = 1 + random.nextInt(4); j < count; j++) {
+                pattern.append('/').append(segments[random.nextInt(segments.length)]);
+            }
+            patterns[i] = pattern.toString();
+        }
+        final TrieFilterChainResolver resolver = resolver(patterns);
+        final AntPathMatcher matcher = new AntPathMatcher();
+        for (int i = 0; i < 5000; i++) {
+            final StringBuilder path = new StringBuilder();
+            for (int j = 0, count = 1 + random.nextInt(5); j < count; j++) {
+                path.append('/').append(pathSegments[random.nextInt(pathSegments.length)]);
+            }
+            String expected = null;
+            for (final String pattern : resolver.getFilterChainManager().getChainNames()) {
+                if (matcher.matches(pattern, path.toString())) {
+                    expected = pattern;
+                    break;
+                }
+            }
+            assertEquals(path.toString(), expected, resolver.resolve(path.toString()));
+        }
+    }
+
+    private static TrieFilterChainResolver resolver(final String... patterns) {
+        final DefaultFilterChainManager manager = new DefaultFilterChainManager();
+        manager.addFilter("test", new AnonymousFilter());
+        for (final String pattern : patterns) {
+            manager.createChain(pattern, "test");
+        }
+        return new TrieFilterChainResolver(manager, 1000);
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.rmannibucau.shiro.index;
+
+import com.github.rmannibucau.shiro.interceptor.Requirement;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SecuredIndexProcessorTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void indexSecuredElements() throws IOException {
+        final File sources = folder.newFolder("src");
+        final File classes = folder.newFolder("classes");
+        final File pkg = new File(sources, "demo");
+        assertTrue(pkg.mkdirs());
+        write(new File(pkg, "Admin.java"), "package demo;\n" +
+                "@org.apache.shiro.authz.annotation.RequiresRoles(\"admin\")\n" +
+                "public class Admin {\n" +
+                "    public void drop() {}\n" +
+                "    private void helper() {}\n" +
+                "}\n");
+        write(new File(pkg, "Service.java"), "package demo;\n" +
+                "public class Service {\n" +
+                "    @org.apache.shiro.authz.annotation.RequiresPermissions(\"doc:read\")\n" +
+                "    public String read(final String id, final int[] versions) { return id; }\n" +
+                "    public String read(final String id) { return id; }\n" +
+                "    public static class Nested {\n" +
+                "        @org.apache.shiro.authz.annotation.RequiresUser\n" +
+                "        public void run(final java.util.List<String> items) {}\n" +
+                "    }\n" +
+                "}\n");
+
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertEquals(0, compiler.run(null, null, null,
+                "-proc:only", "-processor", SecuredIndexProcessor.class.getName(),
+                "-cp", System.getProperty("java.class.path"), "-d", classes.getAbsolutePath(),
+                new File(pkg, "Admin.java").getAbsolutePath(), new File(pkg, "Service.java").getAbsolutePath()));
+        assertEquals(0, compiler.run(null, null, null, "-proc:none",
+                "-cp", System.getProperty("java.class.path"), "-d", classes.getAbsolutePath(),
+                new File(pkg, "Admin.java").getAbsolutePath(), new File(pkg, "Service.java").getAbsolutePath()));
+
+        try (final URLClassLoader loader = new URLClassLoader(new URL[]{classes.toURI().toURL()}, getClass().getClassLoader())) {
+            final SecuredIndex index = SecuredIndex.load(loader);
+            final Set<String> methods = new TreeSet<>();
+            index.forEachMethod(loader, (type, method) -> {
+                if (type.getName().startsWith("demo.")) { // test-classes have their own index
+                    methods.add(type.getName() + "#" + SecuredIndex.signature(method));
+                }
+            });
+            assertEquals(new TreeSet<>(asList(
+                    "demo.Admin#drop()",
+                    "demo.Service#read(java.lang.String,int[])",
+                    "demo.Service$Nested#run(java.util.List)")), methods);
+        }
+    }
+
+    @Test
+    public void runsWithoutShiro() throws IOException, InterruptedException {
+        final File sources = folder.newFolder("plain");
+        final File classes = folder.newFolder("plain-classes");
+        final File source = new File(sources, "Plain.java");
+        write(source, "@Deprecated\npublic class Plain {}\n"); // any annotation makes javac query the processor
+        final String processorPath = new File(SecuredIndexProcessor.class.getProtectionDomain().getCodeSource().getLocation().getFile()).getAbsolutePath();
+        final File javaHome = new File(System.getProperty("java.home"));
+        final File javac = Stream.of(new File(javaHome, "bin/javac"), new File(javaHome.getParentFile(), "bin/javac"))
+                .filter(File::exists)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No javac in " + javaHome));
+        final Process process = new ProcessBuilder( // forked so the processor doesn't see the test classpath
+                javac.getAbsolutePath(), "-processorpath", processorPath, "-processor", SecuredIndexProcessor.class.getName(),
+                "-d", classes.getAbsolutePath(), source.getAbsolutePath())
+                .redirectErrorStream(true)
+                .start();
+        final String output = new String(readAll(process.getInputStream()), StandardCharsets.UTF_8);
+        assertEquals(output, 0, process.waitFor());
+    }
+
+    @Test
+    public void supportsAllRequirements() {
+        assertEquals(Stream.of(Requirement.values()).map(r -> r.getType().getName()).collect(toSet()),
+                new SecuredIndexProcessor().getSupportedAnnotationTypes());
+    }
+
+    private static byte[] readAll(final InputStream stream) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int read;
+        while ((read = stream.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static void write(final File file, final String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,208 @@
+package com.github.rmannibucau.shiro.interceptor;
+
+import com.github.rmannibucau.shiro.authz.ExecutorAsyncAuthorizer;
+import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.authz.UnauthenticatedException;
+import org.apache.shiro.authz.UnauthorizedException;
+import org.apache.shiro.authz.annotation.RequiresPermissions;
+import org.apache.shiro.authz.annotation.RequiresRoles;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.realm.SimpleAccountRealm;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.interceptor.InvocationContext;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncAuthorizationTest {
+    private ExecutorService authorizationPool;
+    private ExecutorService invocationPool;
+    private DefaultSecurityManager manager;
+
+    @Before
+    public void init() {
+        authorizationPool = Executors.newSingleThreadExecutor(r -> new Thread(r, "test-authorization"));
+        invocationPool = Executors.newSingleThreadExecutor(r -> new Thread(r, "test-invocation"));
+        AsyncAuthorization.setAuthorizer(new ExecutorAsyncAuthorizer(authorizationPool));
+        AsyncAuthorization.setExecutor(invocationPool);
+
+        final SimpleAccountRealm realm = new SimpleAccountRealm("test");
+        realm.addAccount("user", "pwd", "user");
+        manager = new DefaultSecurityManager(realm);
+    }
+
+    @After
+    public void reset() {
+        ThreadContext.remove();
+        AsyncAuthorization.setAuthorizer(null);
+        AsyncAuthorization.setExecutor(null);
+        authorizationPool.shutdownNow();
+        invocationPool.shutdownNow();
+    }
+
+    @Test
+    public void grantedProceedsOnTheInvocationExecutor() throws Exception {
+        final Subject subject = login();
+        final Invocation invocation = new Invocation(Service.class.getMethod("user"));
+        final Object result = AsyncAuthorization.proceed(invocation, plan(invocation), Requirement.ROLES);
+        assertEquals("ok", CompletableFuture.class.cast(result).get(1, TimeUnit.MINUTES));
+        assertEquals("test-invocation", invocation.thread.get());
+        assertSame(subject, invocation.subject.get());
+    }
+
+    @Test
+    public void fused() throws Exception {
+        login();
+        final Invocation invocation = new Invocation(Service.class.getMethod("user"));
+        final Object result = AsyncAuthorization.proceed(invocation, plan(invocation), null);
+        assertEquals("ok", CompletableFuture.class.cast(result).get(1, TimeUnit.MINUTES));
+        assertEquals("test-invocation", invocation.thread.get());
+    }
+
+    @Test
+    public void deniedFailsTheStage() throws Exception {
+        login();
+        final Invocation invocation = new Invocation(Service.class.getMethod("admin"));
+        final Object result = AsyncAuthorization.proceed(invocation, plan(invocation), null);
+        assertFailed(result, UnauthorizedException.class);
+        assertNull(invocation.thread.get());
+    }
+
+    @Test
+    public void synchronousCheckFailureFailsTheStage() throws Exception {
+        ThreadContext.bind(new Subject.Builder(manager).buildSubject()); // anonymous: the check throws before any async call
+        final Invocation invocation = new Invocation(Service.class.getMethod("user"));
+        final Object result = AsyncAuthorization.proceed(invocation, plan(invocation), Requirement.ROLES);
+        assertFailed(result, UnauthenticatedException.class);
+        assertNull(invocation.thread.get());
+    }
+
+    @Test
+    public void authorizerFailureFailsTheStage() throws Exception {
+        login();
+        AsyncAuthorization.setAuthorizer(new ExecutorAsyncAuthorizer(authorizationPool) {
+            @Override
+            public CompletionStage<Boolean> isPermitted(final Subject subject, final String permission) {
+                throw new IllegalStateException("realm down");
+            }
+        });
+        final Invocation invocation = new Invocation(Service.class.getMethod("read"));
+        final Object result = AsyncAuthorization.proceed(invocation, plan(invocation), Requirement.PERMISSIONS);
+        assertFailed(result, IllegalStateException.class);
+        assertNull(invocation.thread.get());
+    }
+
+    private Subject login() {
+        final Subject subject = new Subject.Builder(manager).buildSubject();
+        subject.login(new UsernamePasswordToken("user", "pwd"));
+        ThreadContext.bind(subject);
+        return subject;
+    }
+
+    private static AuthorizationPlan plan(final Invocation invocation) {
+        final AuthorizationPlan plan = AuthorizationPlan.compile(invocation.getMethod(), Service.class, true);
+        assertTrue(plan.isAsync());
+        return plan;
+    }
+
+    private static void assertFailed(final Object result, final Class<? extends Throwable> error)
+            throws InterruptedException, TimeoutException {
+        assertTrue(CompletableFuture.class.isInstance(result));
+        try {
+            CompletableFuture.class.cast(result).get(1, TimeUnit.MINUTES);
+            fail();
+        } catch (final ExecutionException ee) {
+            assertTrue(String.valueOf(ee.getCause()), error.isInstance(ee.getCause()));
+        }
+    }
+
+    public static class Service {
+        @RequiresRoles("user")
+        public CompletionStage<String> user() {
+            return CompletableFuture.completedFuture("ok");
+        }
+
+        @RequiresRoles("admin")
+        public CompletionStage<String> admin() {
+            return CompletableFuture.completedFuture("ok");
+        }
+
+        @RequiresPermissions("doc:read")
+        public CompletionStage<String> read() {
+            return CompletableFuture.completedFuture("ok");
+        }
+    }
+
+    private static class Invocation implements InvocationContext {
+        private final Method method;
+        private final AtomicReference<String> thread = new AtomicReference<>();
+        private final AtomicReference<Subject> subject = new AtomicReference<>();
+        private final Map<String, Object> data = new HashMap<>();
+
+        private Invocation(final Method method) {
+            this.method = method;
+        }
+
+        @Override
+        public Object getTarget() {
+            return null;
+        }
+
+        @Override
+        public Object getTimer() {
+            return null;
+        }
+
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+
+        @Override
+        public Constructor<?> getConstructor() {
+            return null;
+        }
+
+        @Override
+        public Object[] getParameters() {
+            return new Object[0];
+        }
+
+        @Override
+        public void setParameters(final Object[] params) {
+            // no-op
+        }
+
+        @Override
+        public Map<String, Object> getContextData() {
+            return data;
+        }
+
+        @Override
+        public Object proceed() {
+            thread.set(Thread.currentThread().getName());
+            subject.set(ThreadContext.getSubject());
+            return CompletableFuture.completedFuture("ok");
+        }
+    }
+}
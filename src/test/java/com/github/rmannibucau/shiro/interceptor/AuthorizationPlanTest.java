@@ -0,0 +1,135 @@
+package com.github.rmannibucau.shiro.interceptor;
+
+import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.authz.UnauthorizedException;
+import org.apache.shiro.authz.annotation.Logical;
+import org.apache.shiro.authz.annotation.RequiresAuthentication;
+import org.apache.shiro.authz.annotation.RequiresPermissions;
+import org.apache.shiro.authz.annotation.RequiresRoles;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.realm.SimpleAccountRealm;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AuthorizationPlanTest {
+    @Test
+    public void inheritedMethodUsesTheBeanClassAnnotations() throws NoSuchMethodException {
+        final Method method = Base.class.getMethod("run");
+
+        // subclass first then parent: the first plan must not be reused for the other class
+        final AuthorizationPlan child = AuthorizationPlan.of(method, new Child());
+        assertTrue(child.requires(Requirement.ROLES));
+        assertFalse(child.requires(Requirement.AUTHENTICATION)); // like shiro, the declaring class is not read
+
+        final AuthorizationPlan base = AuthorizationPlan.of(method, new Base());
+        assertTrue(base.requires(Requirement.AUTHENTICATION));
+        assertFalse(base.requires(Requirement.ROLES));
+
+        assertNotSame(child, base);
+        assertSame(child, AuthorizationPlan.of(method, new Child()));
+        assertSame(base, AuthorizationPlan.prepare(method, Base.class));
+    }
+
+    @Test
+    public void preparedPlanIsReused() throws NoSuchMethodException {
+        final Method method = Prepared.class.getMethod("run");
+        final AuthorizationPlan prepared = AuthorizationPlan.prepare(method, Prepared.class);
+        assertSame(prepared, AuthorizationPlan.of(method, new Prepared()));
+        assertTrue(prepared.requires(Requirement.PERMISSIONS));
+    }
+
+    @Test
+    public void interceptionSubclassUsesTheBeanClassPlans() throws NoSuchMethodException {
+        final Method method = Base.class.getMethod("run");
+        final AuthorizationPlan prepared = AuthorizationPlan.prepare(method, Child.class); // inherited by the bean
+        assertSame(prepared, AuthorizationPlan.of(method, new Child()));
+        assertSame(prepared, AuthorizationPlan.of(method, new Child$$Intercepted()));
+        assertSame(Child.class, AuthorizationPlan.beanClass(Child$$Intercepted.class));
+        assertSame(Child.class, AuthorizationPlan.beanClass(Child.class));
+    }
+
+    @Test
+    public void methodAnnotationWins() throws NoSuchMethodException {
+        final AuthorizationPlan plan = AuthorizationPlan.of(Child.class.getMethod("admin"), new Child());
+        assertTrue(plan.isSecured());
+        assertTrue(plan.requires(Requirement.ROLES));
+        assertTrue(plan.requires(Requirement.PERMISSIONS));
+    }
+
+    @Test
+    public void unsecured() throws NoSuchMethodException {
+        final AuthorizationPlan plan = AuthorizationPlan.of(Object.class.getMethod("toString"), new Object());
+        assertFalse(plan.isSecured());
+        plan.checkAll(); // no subject needed
+    }
+
+    @Test
+    public void check() throws NoSuchMethodException {
+        final SimpleAccountRealm realm = new SimpleAccountRealm("test");
+        realm.addAccount("user", "pwd", "user");
+        final Subject subject = new Subject.Builder(new DefaultSecurityManager(realm)).buildSubject();
+        subject.login(new UsernamePasswordToken("user", "pwd"));
+        ThreadContext.bind(subject);
+        try {
+            AuthorizationPlan.of(Base.class.getMethod("run"), new Base()).checkAll();
+            AuthorizationPlan.of(Child.class.getMethod("any"), new Child()).checkAll(); // OR on roles
+            try {
+                AuthorizationPlan.of(Base.class.getMethod("run"), new Child()).checkAll();
+                fail();
+            } catch (final UnauthorizedException ue) {
+                assertNotNull(ue.getCause());
+                assertTrue(ue.getCause().getMessage(), ue.getCause().getMessage().startsWith("Not authorized to invoke method: "));
+            }
+            try {
+                AuthorizationPlan.of(Child.class.getMethod("admin"), new Child()).check(Requirement.PERMISSIONS);
+                fail();
+            } catch (final UnauthorizedException ue) {
+                assertEquals("Subject does not have permission [admin:read]", ue.getMessage());
+            }
+        } finally {
+            ThreadContext.remove();
+        }
+    }
+
+    @RequiresAuthentication
+    public static class Base {
+        public void run() {
+            // no-op
+        }
+    }
+
+    @RequiresRoles("admin")
+    public static class Child extends Base {
+        @RequiresPermissions({"admin:read", "admin:write"})
+        public void admin() {
+            // no-op
+        }
+
+        @RequiresRoles(value = {"admin", "user"}, logical = Logical.OR)
+        public void any() {
+            // no-op
+        }
+    }
+
+    // what a container generates to intercept a bean, it doesn't carry the class annotations
+    public static class Child$$Intercepted extends Child {
+    }
+
+    @RequiresPermissions("prepared")
+    public static class Prepared {
+        public void run() {
+            // no-op
+        }
+    }
+}
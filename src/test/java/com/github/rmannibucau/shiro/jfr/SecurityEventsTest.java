@@ -0,0 +1,86 @@
+package com.github.rmannibucau.shiro.jfr;
+
+import com.github.rmannibucau.shiro.interceptor.Requirement;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SecurityEventsTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void emitsEvents() throws IOException, NoSuchMethodException {
+        final SecurityEvents events = SecurityEvents.get();
+        assertTrue(events.isAvailable());
+
+        final Method method = SecurityEventsTest.class.getMethod("emitsEvents");
+        final File dump = folder.newFile("shiro.jfr");
+        try (final Recording recording = new Recording()) {
+            recording.enable("com.github.rmannibucau.shiro.Authorization").withThreshold(null);
+            recording.enable("com.github.rmannibucau.shiro.Realm").withThreshold(null);
+            recording.start();
+
+            events.commitAuthorization(events.beginAuthorization(), method, Requirement.ROLES, false);
+            events.commitRealm(events.beginRealm(), "realm", "authentication", "user", true);
+
+            recording.stop();
+            recording.dump(dump.toPath());
+        }
+        assertNull(events.beginAuthorization()); // nothing allocated once the recording is over
+
+        final List<RecordedEvent> recorded = RecordingFile.readAllEvents(dump.toPath());
+        assertEquals(2, recorded.size());
+
+        final RecordedEvent authorization = recorded.stream()
+                .filter(e -> e.getEventType().getName().equals("com.github.rmannibucau.shiro.Authorization"))
+                .findFirst().orElseThrow(IllegalStateException::new);
+        assertEquals(SecurityEventsTest.class.getName() + "#emitsEvents", authorization.getString("method"));
+        assertEquals("org.apache.shiro.authz.annotation.RequiresRoles", authorization.getString("annotation"));
+        assertFalse(authorization.getBoolean("granted"));
+
+        final RecordedEvent realm = recorded.stream()
+                .filter(e -> e.getEventType().getName().equals("com.github.rmannibucau.shiro.Realm"))
+                .findFirst().orElseThrow(IllegalStateException::new);
+        assertEquals("realm", realm.getString("realm"));
+        assertEquals("authentication", realm.getString("operation"));
+        assertEquals("user", realm.getString("target"));
+        assertTrue(realm.getBoolean("success"));
+    }
+
+    @Test
+    public void nothingAllocatedWithoutRecording() {
+        assertNull(SecurityEvents.get().beginAuthorization());
+    }
+
+    @Test
+    public void disabled() {
+        final String old = System.getProperty("shiro-cdi.jfr");
+        System.setProperty("shiro-cdi.jfr", "false");
+        try {
+            final SecurityEvents events = SecurityEvents.newInstance();
+            assertEquals(SecurityEvents.class, events.getClass());
+            assertFalse(events.isAvailable());
+            assertNull(events.beginAuthorization());
+        } finally {
+            if (old == null) {
+                System.clearProperty("shiro-cdi.jfr");
+            } else {
+                System.setProperty("shiro-cdi.jfr", old);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.rmannibucau.shiro.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+    @Test
+    public void bucketsCoverValues() {
+        for (final long value : new long[]{0, 1, 31, 32, 33, 100, 1000, 123456789, Long.MAX_VALUE}) {
+            final int index = LatencyHistogram.index(value);
+            final long highest = LatencyHistogram.highestEquivalentValue(index);
+            assertTrue(value + " <= " + highest, value <= highest);
+            assertTrue(value + " precision", highest - value <= Math.max(0, value / 16));
+            if (index > 0) {
+                assertTrue(LatencyHistogram.highestEquivalentValue(index - 1) < value);
+            }
+        }
+    }
+
+    @Test
+    public void percentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000, histogram.getMax());
+        assertEquals(500500, histogram.getMean(), 0.1);
+        final long p50 = histogram.getValueAtPercentile(50);
+        assertTrue(String.valueOf(p50), p50 >= 500000 && p50 <= 500000 * 17 / 16);
+        final long p99 = histogram.getValueAtPercentile(99);
+        assertTrue(String.valueOf(p99), p99 >= 990000 && p99 <= 1000000);
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+}
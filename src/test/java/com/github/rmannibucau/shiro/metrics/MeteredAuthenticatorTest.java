@@ -0,0 +1,42 @@
+package com.github.rmannibucau.shiro.metrics;
+
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.Authenticator;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.realm.SimpleAccountRealm;
+import org.apache.shiro.util.Destroyable;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class MeteredAuthenticatorTest {
+    @Test
+    public void destroyDelegate() {
+        final AtomicInteger destroyed = new AtomicInteger();
+        final DefaultSecurityManager manager = new DefaultSecurityManager(new SimpleAccountRealm());
+        manager.setAuthenticator(new MeteredAuthenticator(new DestroyableAuthenticator(destroyed), new DecisionStats()));
+        manager.destroy();
+        assertEquals(1, destroyed.get());
+    }
+
+    private static class DestroyableAuthenticator implements Authenticator, Destroyable {
+        private final AtomicInteger destroyed;
+
+        private DestroyableAuthenticator(final AtomicInteger destroyed) {
+            this.destroyed = destroyed;
+        }
+
+        @Override
+        public AuthenticationInfo authenticate(final AuthenticationToken token) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void destroy() {
+            destroyed.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.rmannibucau.shiro.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SecurityMetricsTest {
+    @Test
+    public void overloadsHaveTheirOwnKey() throws NoSuchMethodException {
+        assertEquals("java.lang.String#indexOf(int)", SecurityMetrics.key(String.class.getMethod("indexOf", int.class)));
+        assertEquals("java.lang.String#indexOf(java.lang.String,int)", SecurityMetrics.key(String.class.getMethod("indexOf", String.class, int.class)));
+        assertEquals("java.lang.Object#toString()", SecurityMetrics.key(Object.class.getMethod("toString")));
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.rmannibucau.shiro.session;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MappedLogTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void liveBytesSurviveCompactionOnAppend() throws IOException {
+        final Path path = folder.getRoot().toPath().resolve("sessions.log");
+        final int capacity = 4096; // ~10 records, each update past the first one compacts while appending
+        final int[] versions = new int[10];
+        final long[] sizes = new long[10];
+        {
+            final MappedLog log = new MappedLog(path, capacity);
+            final Random random = new Random(1234);
+            int used = 0;
+            int compactions = 0;
+            for (int update = 0; update < 200; update++) {
+                final int session = update < 10 ? update : random.nextInt(10);
+                final byte[] payload = payload(++versions[session], session);
+                log.put(id(session), payload, Long.MAX_VALUE);
+                sizes[session] = recordSize(session, payload);
+                assertEquals("update #" + update, Arrays.stream(sizes).sum(), log.liveBytes());
+                if (log.usedBytes() < used) {
+                    compactions++;
+                }
+                used = log.usedBytes();
+            }
+            assertTrue(compactions > 1);
+            log.close();
+        }
+        final MappedLog reopened = new MappedLog(path, capacity);
+        try {
+            assertEquals(Arrays.stream(sizes).sum(), reopened.liveBytes());
+            assertEquals(10, reopened.size());
+            for (int i = 0; i < 10; i++) {
+                assertArrayEquals(payload(versions[i], i), reopened.read(id(i)));
+            }
+
+            reopened.delete(id(0));
+            sizes[0] = 0;
+            final byte[] payload = payload(++versions[1], 1);
+            reopened.put(id(1), payload, Long.MAX_VALUE);
+            sizes[1] = recordSize(1, payload);
+            assertEquals(Arrays.stream(sizes).sum(), reopened.liveBytes());
+            reopened.compact();
+            assertEquals(reopened.usedBytes(), reopened.liveBytes());
+            assertArrayEquals(payload, reopened.read(id(1)));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private static String id(final int session) {
+        return "session-" + session;
+    }
+
+    // header (length, crc) + body header (type, expiration, id length) + id (kind + utf-8) + payload
+    private static long recordSize(final int session, final byte[] payload) {
+        return 8 + 13 + 1 + id(session).getBytes(StandardCharsets.UTF_8).length + payload.length;
+    }
+
+    // sizes change between versions so a wrong previous record size shows up in the live bytes
+    private static byte[] payload(final int version, final int session) {
+        final byte[] payload = new byte[250 + (version * 7 + session * 13) % 97];
+        Arrays.fill(payload, (byte) (version + session));
+        return payload;
+    }
+}
@@ -0,0 +1,146 @@
+package com.github.rmannibucau.shiro.session;
+
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.session.mgt.SimpleSession;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MappedSessionDAOTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void survivesRestart() throws IOException {
+        final Path path = folder.getRoot().toPath().resolve("sessions.log");
+        final Serializable kept;
+        final Serializable deleted;
+        {
+            final MappedSessionDAO dao = new MappedSessionDAO(path, 1024 * 1024);
+            kept = dao.create(session("alice"));
+            deleted = dao.create(session("bob"));
+            final Session updated = dao.readSession(kept);
+            updated.setAttribute("user", "alice2");
+            dao.update(updated);
+            dao.delete(dao.readSession(deleted));
+            dao.destroy();
+        }
+        final MappedSessionDAO dao = new MappedSessionDAO(path, 1024 * 1024);
+        try {
+            assertEquals(1, dao.size());
+            assertEquals("alice2", dao.readSession(kept).getAttribute("user"));
+            try {
+                dao.readSession(deleted);
+                fail();
+            } catch (final UnknownSessionException use) {
+                // expected
+            }
+        } finally {
+            dao.destroy();
+        }
+    }
+
+    @Test
+    public void ignoreTornRecord() throws IOException {
+        final Path path = folder.getRoot().toPath().resolve("sessions.log");
+        final MappedSessionDAO dao = new MappedSessionDAO(path, 64 * 1024);
+        final Serializable id = dao.create(session("alice"));
+        dao.destroy();
+
+        final long end = path.toFile().length(); // file has the mapping size, find the end of the log
+        try (final RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            int offset = 0;
+            while (true) {
+                file.seek(offset);
+                final int length = file.readInt();
+                if (length == 0) {
+                    break;
+                }
+                offset += 8 + length;
+            }
+            assertTrue(offset < end);
+            file.seek(offset); // a record with a length but a wrong crc
+            file.writeInt(64);
+            file.writeInt(42);
+        }
+
+        final MappedSessionDAO reloaded = new MappedSessionDAO(path, 64 * 1024);
+        try {
+            assertEquals("alice", reloaded.readSession(id).getAttribute("user"));
+            final Serializable other = reloaded.create(session("bob")); // overwrites the torn record
+            assertEquals("bob", reloaded.readSession(other).getAttribute("user"));
+        } finally {
+            reloaded.destroy();
+        }
+    }
+
+    @Test
+    public void compaction() {
+        final MappedSessionDAO dao = new MappedSessionDAO(folder.getRoot().toPath().resolve("sessions.log"), 64 * 1024);
+        try {
+            final Serializable id = dao.create(session("alice"));
+            final Session session = dao.readSession(id);
+            for (int i = 0; i < 1000; i++) { // much more than the capacity, old versions are compacted
+                session.setAttribute("counter", i);
+                dao.update(session);
+            }
+            assertEquals(999, dao.readSession(id).getAttribute("counter"));
+            assertEquals(1, dao.getActiveSessions().size());
+        } finally {
+            dao.destroy();
+        }
+    }
+
+    @Test
+    public void exclusiveAccess() {
+        final Path path = folder.getRoot().toPath().resolve("sessions.log");
+        final MappedSessionDAO dao = new MappedSessionDAO(path, 1024);
+        try {
+            new MappedSessionDAO(path, 1024);
+            fail();
+        } catch (final IllegalStateException expected) {
+            // ok, includes OverlappingFileLockException in the same jvm
+        } finally {
+            dao.destroy();
+        }
+        new MappedSessionDAO(path, 1024).destroy(); // released
+    }
+
+    @Test
+    public void keepExpiredSessionsUntilDeleted() {
+        final Path path = folder.getRoot().toPath().resolve("sessions.log");
+        final Serializable id;
+        {
+            final MappedSessionDAO dao = new MappedSessionDAO(path, 64 * 1024);
+            final SimpleSession session = session("alice");
+            session.setTimeout(1);
+            session.setLastAccessTime(new Date(0)); // expired but not yet validated
+            id = dao.create(session);
+            dao.compact();
+            dao.destroy();
+        }
+        final MappedSessionDAO dao = new MappedSessionDAO(path, 64 * 1024);
+        try { // the session manager can still expire it (listeners)
+            assertEquals("alice", dao.readSession(id).getAttribute("user"));
+        } finally {
+            dao.destroy();
+        }
+    }
+
+    private static SimpleSession session(final String user) {
+        final SimpleSession session = new SimpleSession("localhost");
+        session.setAttribute("user", user);
+        return session;
+    }
+}
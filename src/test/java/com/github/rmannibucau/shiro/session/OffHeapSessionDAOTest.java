@@ -0,0 +1,101 @@
+package com.github.rmannibucau.shiro.session;
+
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.session.mgt.SimpleSession;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class OffHeapSessionDAOTest {
+    @Test
+    public void crud() {
+        final OffHeapSessionDAO dao = new OffHeapSessionDAO(1024 * 1024, 64 * 1024, 4);
+        final SimpleSession session = new SimpleSession("localhost");
+        session.setAttribute("user", "alice");
+        final Serializable id = dao.create(session);
+
+        final Session read = dao.readSession(id);
+        assertEquals("alice", read.getAttribute("user"));
+
+        read.setAttribute("user", "bob");
+        dao.update(read);
+        assertEquals("bob", dao.readSession(id).getAttribute("user"));
+        assertEquals(1, dao.getActiveSessions().size());
+
+        dao.delete(read);
+        assertEquals(0, dao.size());
+        try {
+            dao.readSession(id);
+            fail();
+        } catch (final UnknownSessionException use) {
+            // expected
+        }
+    }
+
+    @Test
+    public void reuseSlabsOfDeletedRecords() {
+        final SlabStore store = new SlabStore(100, 3); // 2 usable slabs + 1 reserved for compaction
+        for (int i = 0; i < 1000; i++) { // way more than the capacity but only 2 records live at a time
+            store.write("a", bytes(40, i));
+            store.write("b", bytes(40, i + 1));
+        }
+        assertArrayEquals(bytes(40, 999), store.read("a"));
+        assertArrayEquals(bytes(40, 1000), store.read("b"));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void compactSparseSlabs() {
+        final SlabStore store = new SlabStore(100, 3);
+        store.write("a", bytes(50, 1));
+        store.write("b", bytes(50, 2)); // slab 0 full
+        store.write("c", bytes(50, 3));
+        store.write("d", bytes(50, 4)); // slab 1 full
+        store.remove("a"); // slab 0 half used
+        store.write("e", bytes(50, 5)); // needs compaction of slab 0
+        assertArrayEquals(bytes(50, 2), store.read("b"));
+        assertArrayEquals(bytes(50, 3), store.read("c"));
+        assertArrayEquals(bytes(50, 4), store.read("d"));
+        assertArrayEquals(bytes(50, 5), store.read("e"));
+        try {
+            store.write("f", bytes(60, 6));
+            fail();
+        } catch (final IllegalStateException ise) {
+            // expected: no dead bytes left
+        }
+    }
+
+    @Test
+    public void keepExpiredSessionsUntilDeleted() {
+        final OffHeapSessionDAO dao = new OffHeapSessionDAO(3 * 1024, 1024, 1); // 3 slabs of a few sessions
+        final Serializable id = dao.create(expired()); // not yet validated
+        for (int i = 0; i < 100; i++) { // slab pressure
+            final Session other = expired();
+            dao.create(other);
+            dao.delete(other);
+        }
+        assertEquals(id, dao.readSession(id).getId()); // the session manager can still expire it (listeners)
+        assertEquals(1, dao.size());
+    }
+
+    private static Session expired() {
+        final SimpleSession session = new SimpleSession("localhost");
+        session.setTimeout(1);
+        session.setLastAccessTime(new Date(0));
+        return session;
+    }
+
+    private static byte[] bytes(final int length, final int seed) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (seed + i);
+        }
+        return bytes;
+    }
+}
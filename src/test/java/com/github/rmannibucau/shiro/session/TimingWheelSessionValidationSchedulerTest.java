@@ -0,0 +1,83 @@
+package com.github.rmannibucau.shiro.session;
+
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.SessionListener;
+import org.apache.shiro.session.SessionListenerAdapter;
+import org.apache.shiro.session.mgt.DefaultSessionKey;
+import org.apache.shiro.session.mgt.DefaultSessionManager;
+import org.apache.shiro.session.mgt.SimpleSession;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class TimingWheelSessionValidationSchedulerTest {
+    @Test
+    public void expireIdleSessionsOnly() throws InterruptedException {
+        final CountDownLatch expired = new CountDownLatch(1);
+        final DefaultSessionManager manager = new DefaultSessionManager();
+        manager.setGlobalSessionTimeout(300);
+        final TimingWheelSessionValidationScheduler scheduler = new TimingWheelSessionValidationScheduler(manager, 10);
+        final Collection<SessionListener> listeners = new ArrayList<>(asList(scheduler, new SessionListenerAdapter() {
+            @Override
+            public void onExpiration(final Session session) {
+                expired.countDown();
+            }
+        }));
+        manager.setSessionListeners(listeners);
+        manager.setSessionValidationScheduler(scheduler);
+        try {
+            final Serializable idle = manager.start(null).getId();
+            final Session active = manager.start(null);
+            assertTrue(scheduler.isEnabled());
+
+            final long end = System.currentTimeMillis() + 600;
+            while (System.currentTimeMillis() < end) { // keeps the second session alive
+                active.touch();
+                Thread.sleep(50);
+            }
+            assertTrue(expired.await(1, TimeUnit.MINUTES));
+            assertEquals(1, manager.getSessionDAO().getActiveSessions().size());
+            assertNotEquals(idle, manager.getSessionDAO().getActiveSessions().iterator().next().getId());
+            assertNotNull(manager.getSession(new DefaultSessionKey(active.getId())));
+        } finally {
+            manager.destroy();
+        }
+        assertFalse(scheduler.isEnabled());
+    }
+
+    @Test
+    public void expireSessionsStartedByAnotherNode() throws InterruptedException {
+        final CountDownLatch expired = new CountDownLatch(1);
+        final DefaultSessionManager manager = new DefaultSessionManager();
+        manager.setSessionValidationInterval(100);
+        final TimingWheelSessionValidationScheduler scheduler = new TimingWheelSessionValidationScheduler(manager, 10);
+        final Collection<SessionListener> listeners = new ArrayList<>(asList(scheduler, new SessionListenerAdapter() {
+            @Override
+            public void onExpiration(final Session session) {
+                expired.countDown();
+            }
+        }));
+        manager.setSessionListeners(listeners);
+        manager.setSessionValidationScheduler(scheduler);
+        scheduler.enableSessionValidation();
+        try {
+            final SimpleSession remote = new SimpleSession(); // no onStart() on this node
+            remote.setTimeout(200);
+            manager.getSessionDAO().create(remote);
+            assertTrue(expired.await(1, TimeUnit.MINUTES));
+        } finally {
+            manager.destroy();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.rmannibucau.shiro.session;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class TimingWheelTest {
+    @Test
+    public void firesAtDeadline() {
+        final TimingWheel<Integer> wheel = new TimingWheel<>(0);
+        final Random random = new Random(1234);
+        final Map<Integer, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 5000; i++) { // spread over the 4 levels
+            final long deadline = 1 + (i % 4 == 0 ? random.nextInt(64) : random.nextInt(1 << (6 * (i % 4 + 1))));
+            deadlines.put(i, deadline);
+            wheel.schedule(i, deadline);
+        }
+        final List<Integer> fired = new ArrayList<>();
+        final long end = 1 << 24;
+        for (long tick = 1; tick <= end; tick += 997) { // irregular advances, as a late executor would do
+            final long to = Math.min(tick, end);
+            wheel.advance(to, id -> {
+                assertEquals(deadlines.get(id).longValue(), wheel.getTick());
+                fired.add(id);
+            });
+        }
+        wheel.advance(end, fired::add);
+        assertEquals(deadlines.size(), fired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void pastAndFarDeadlines() {
+        final TimingWheel<String> wheel = new TimingWheel<>(100);
+        wheel.schedule("past", 10);
+        wheel.schedule("far", Long.MAX_VALUE);
+        final List<String> fired = new ArrayList<>();
+        wheel.advance(101, fired::add);
+        assertEquals(1, fired.size());
+        assertEquals("past", fired.get(0));
+        wheel.advance(100 + (1L << 24), fired::add);
+        assertEquals(2, fired.size());
+    }
+}
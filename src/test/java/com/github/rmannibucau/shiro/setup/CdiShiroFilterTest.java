@@ -0,0 +1,137 @@
+package com.github.rmannibucau.shiro.setup;
+
+import com.github.rmannibucau.shiro.bean.SecurityManagerBean;
+import com.github.rmannibucau.shiro.http.BypassMatcher;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.mgt.SecurityManager;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class CdiShiroFilterTest {
+    private final ExecutorService pool = Executors.newSingleThreadExecutor();
+    private final AtomicInteger secured = new AtomicInteger();
+    private final AtomicInteger chained = new AtomicInteger();
+    private final FilterChain chain = (request, response) -> chained.incrementAndGet();
+
+    @After
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void lazyModeOnlyBlocksSecuredRequests() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final LazyInitialization lazy = new LazyInitialization(release::await).start();
+        final ShiroSetup.CdiShiroFilter filter = new ShiroSetup.CdiShiroFilter(new BypassMatcher("/static/*"), lazy, new SecuredFilter());
+
+        filter.doFilter(request("/static/app.js"), response(), chain); // served during the initialization
+        assertEquals(1, chained.get());
+        assertEquals(0, secured.get());
+
+        final Future<?> request = pool.submit(() -> {
+            filter.doFilter(request("/api"), response(), chain);
+            return null;
+        });
+        assertPending(request);
+        assertEquals(0, secured.get());
+
+        release.countDown();
+        request.get(1, TimeUnit.MINUTES);
+        assertEquals(1, secured.get());
+        assertEquals(2, chained.get());
+    }
+
+    @Test
+    public void failedInitialization() throws Exception {
+        final LazyInitialization lazy = new LazyInitialization(() -> {
+            throw new IllegalStateException("no realm");
+        }).start();
+        final ShiroSetup.CdiShiroFilter filter = new ShiroSetup.CdiShiroFilter(null, lazy, new SecuredFilter());
+        try {
+            filter.doFilter(request("/api"), response(), chain);
+            fail();
+        } catch (final ServletException se) {
+            assertEquals("no realm", se.getCause().getMessage());
+        }
+        assertEquals(0, secured.get());
+    }
+
+    @Test
+    public void injectedSecurityManagerWaitsForTheInitialization() throws Exception {
+        final DefaultSecurityManager manager = new DefaultSecurityManager();
+        final SecurityManagerBean bean = new SecurityManagerBean(DefaultSecurityManager.class);
+        bean.initSecurityManagerBean(manager);
+        final CountDownLatch release = new CountDownLatch(1);
+        final LazyInitialization lazy = new LazyInitialization(() -> {
+            assertSame(manager, bean.create(null)); // no deadlock when the initialization needs it
+            release.await();
+        });
+        bean.setInitialization(lazy.getFuture(), lazy.getThread());
+        lazy.start();
+
+        final Future<SecurityManager> injection = pool.submit(() -> bean.create(null));
+        assertPending(injection);
+        release.countDown();
+        assertSame(manager, injection.get(1, TimeUnit.MINUTES));
+        assertSame(manager, bean.create(null));
+    }
+
+    private static void assertPending(final Future<?> future) throws Exception {
+        try {
+            future.get(200, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (final TimeoutException expected) {
+            // still waiting for the security manager
+        }
+    }
+
+    private static HttpServletRequest request(final String path) {
+        return HttpServletRequest.class.cast(Proxy.newProxyInstance(CdiShiroFilterTest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+                (proxy, method, args) -> "getServletPath".equals(method.getName()) ? path : null));
+    }
+
+    private static HttpServletResponse response() {
+        return HttpServletResponse.class.cast(Proxy.newProxyInstance(CdiShiroFilterTest.class.getClassLoader(), new Class<?>[]{HttpServletResponse.class},
+                (proxy, method, args) -> null));
+    }
+
+    private class SecuredFilter implements Filter {
+        @Override
+        public void init(final FilterConfig filterConfig) {
+            // no-op
+        }
+
+        @Override
+        public void doFilter(final ServletRequest request, final ServletResponse response, final FilterChain filterChain) throws IOException, ServletException {
+            secured.incrementAndGet();
+            filterChain.doFilter(request, response);
+        }
+
+        @Override
+        public void destroy() {
+            // no-op
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.rmannibucau.shiro.setup;
+
+import com.github.rmannibucau.shiro.holder.SubjectHolder;
+import com.github.rmannibucau.shiro.holder.SubjectHolders;
+import com.github.rmannibucau.shiro.holder.ThreadContextSubjectHolder;
+import com.github.rmannibucau.shiro.holder.ThreadLocalSubjectHolder;
+import com.github.rmannibucau.shiro.interceptor.AuthorizationPlan;
+import com.github.rmannibucau.shiro.interceptor.Requirement;
+import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.authz.annotation.RequiresAuthentication;
+import org.apache.shiro.mgt.DefaultSubjectDAO;
+import org.apache.shiro.realm.SimpleAccountRealm;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.apache.shiro.web.mgt.DefaultWebSecurityManager;
+import org.apache.shiro.web.mgt.DefaultWebSessionStorageEvaluator;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SubjectHolderShiroFilterTest {
+    private final SubjectHolder original = SubjectHolders.get();
+
+    @After
+    public void reset() {
+        SubjectHolders.set(original);
+        ThreadContext.remove();
+    }
+
+    @Test
+    public void threadContext() throws Exception {
+        filter(new ThreadContextSubjectHolder());
+        assertNull(ThreadContext.getSubject());
+    }
+
+    @Test
+    public void threadLocal() throws Exception {
+        filter(new ThreadLocalSubjectHolder());
+        assertNull(ThreadContext.getSubject());
+    }
+
+    @RequiresAuthentication
+    public void secured() {
+        // no-op
+    }
+
+    private void filter(final SubjectHolder holder) throws Exception {
+        SubjectHolders.set(holder);
+
+        final SimpleAccountRealm realm = new SimpleAccountRealm();
+        realm.addAccount("user", "pwd");
+        final ShiroSetup.CdiShiroFilter.SubjectHolderShiroFilter filter = new ShiroSetup.CdiShiroFilter.SubjectHolderShiroFilter();
+        final DefaultWebSecurityManager manager = new DefaultWebSecurityManager(realm);
+        final DefaultWebSessionStorageEvaluator stateless = new DefaultWebSessionStorageEvaluator();
+        stateless.setSessionStorageEnabled(false); // no servlet container session in this test
+        DefaultSubjectDAO.class.cast(manager.getSubjectDAO()).setSessionStorageEvaluator(stateless);
+        filter.setSecurityManager(manager);
+
+        final Method secured = SubjectHolderShiroFilterTest.class.getMethod("secured");
+        final AtomicReference<Subject> current = new AtomicReference<>();
+        final FilterChain chain = (request, response) -> {
+            final Subject subject = SubjectHolders.current();
+            assertNotNull(subject);
+            if (ThreadLocalSubjectHolder.class.isInstance(holder)) { // SecurityUtils doesn't see it
+                assertNull(ThreadContext.getSubject());
+            } else {
+                assertSame(subject, ThreadContext.getSubject());
+            }
+            subject.login(new UsernamePasswordToken("user", "pwd"));
+            AuthorizationPlan.of(secured, this).check(Requirement.AUTHENTICATION); // interceptors see the request subject
+            current.set(subject);
+        };
+        filter.doFilter(request(), response(), chain);
+
+        assertNotNull(current.get());
+        assertTrue(current.get().isAuthenticated());
+        assertNull(SubjectHolders.current()); // unbound after the request
+    }
+
+    private static HttpServletRequest request() {
+        return HttpServletRequest.class.cast(Proxy.newProxyInstance(SubjectHolderShiroFilterTest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getServletPath":
+                            return "/api";
+                        case "getRequestURI":
+                            return "/api";
+                        case "getContextPath":
+                            return "";
+                        default:
+                            return null;
+                    }
+                }));
+    }
+
+    private static HttpServletResponse response() {
+        return HttpServletResponse.class.cast(Proxy.newProxyInstance(SubjectHolderShiroFilterTest.class.getClassLoader(), new Class<?>[]{HttpServletResponse.class},
+                (proxy, method, args) -> null));
+    }
+}